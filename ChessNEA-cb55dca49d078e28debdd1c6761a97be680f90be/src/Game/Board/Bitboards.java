@@ -0,0 +1,152 @@
+package Game.Board;
+
+import Game.Colour;
+import Game.Coordinate;
+import Game.Piece.PieceType;
+
+/**
+ * Helper methods for working with 64-bit bitboards.
+ * Bit 0 is a1, bit 7 is h1 and bit 63 is h8, so a square index is (Rank - 1) * 8 + (File - 1).
+ */
+public final class Bitboards {
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    /*
+    Precomputed attack masks for the pieces which do not slide, indexed by square.
+    Pawn tables are also indexed by colour ordinal since pawns only move forwards
+     */
+    public static final long[] KNIGHT_ATTACKS = new long[64];
+    public static final long[] KING_ATTACKS = new long[64];
+    public static final long[][] PAWN_ATTACKS = new long[2][64];
+    public static final long[][] PAWN_PUSHES = new long[2][64];
+
+    /*
+    BETWEEN holds the squares strictly between two squares on the same line (rank, file or diagonal)
+    and LINE holds the whole line through both squares from edge to edge. Both are empty if the squares do not share a line
+     */
+    public static final long[][] BETWEEN = new long[64][64];
+    public static final long[][] LINE = new long[64][64];
+
+    static {
+        int[] knightFileSteps = {-1, -2, -2, -1, 1, 2, 2, 1};
+        int[] knightRankSteps = {-2, -1, 1, 2, -2, -1, 1, 2};
+        int[] kingFileSteps = {-1, -1, -1, 0, 0, 1, 1, 1};
+        int[] kingRankSteps = {-1, 0, 1, -1, 1, -1, 0, 1};
+
+        for (int square = 0; square < 64; square++) {
+            int file = square & 7;
+            int rank = square >>> 3;
+
+            for (int i = 0; i < 8; i++) {
+                KNIGHT_ATTACKS[square] |= Offset(file + knightFileSteps[i], rank + knightRankSteps[i]);
+                KING_ATTACKS[square] |= Offset(file + kingFileSteps[i], rank + kingRankSteps[i]);
+            }
+
+            PAWN_ATTACKS[Colour.WHITE.ordinal()][square] = Offset(file - 1, rank + 1) | Offset(file + 1, rank + 1);
+            PAWN_ATTACKS[Colour.BLACK.ordinal()][square] = Offset(file - 1, rank - 1) | Offset(file + 1, rank - 1);
+            PAWN_PUSHES[Colour.WHITE.ordinal()][square] = Offset(file, rank + 1);
+            PAWN_PUSHES[Colour.BLACK.ordinal()][square] = Offset(file, rank - 1);
+        }
+
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                if (from == to) {
+                    continue;
+                }
+                long target = SquareMask(to);
+                if ((MagicBitboards.getRookAttacks(from, 0L) & target) != 0) {
+                    BETWEEN[from][to] = MagicBitboards.getRookAttacks(from, target) & MagicBitboards.getRookAttacks(to, SquareMask(from));
+                    LINE[from][to] = (MagicBitboards.getRookAttacks(from, 0L) & MagicBitboards.getRookAttacks(to, 0L)) | SquareMask(from) | target;
+                } else if ((MagicBitboards.getBishopAttacks(from, 0L) & target) != 0) {
+                    BETWEEN[from][to] = MagicBitboards.getBishopAttacks(from, target) & MagicBitboards.getBishopAttacks(to, SquareMask(from));
+                    LINE[from][to] = (MagicBitboards.getBishopAttacks(from, 0L) & MagicBitboards.getBishopAttacks(to, 0L)) | SquareMask(from) | target;
+                }
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    /**
+     * @param file A zero based file, which may be off the board
+     * @param rank A zero based rank, which may be off the board
+     * @return a bitboard of the square, or 0 if the square is off the board
+     */
+    private static long Offset(int file, int rank) {
+        if (file < 0 || file > 7 || rank < 0 || rank > 7) {
+            return 0L;
+        }
+        return 1L << ((rank << 3) + file);
+    }
+
+    /**
+     * Converts a file and rank (both starting at 1, as used by Coordinate) to a square index
+     *
+     * @param File The X-Coordinate (1-8)
+     * @param Rank The Y-Coordinate (1-8)
+     * @return a square index from 0 (a1) to 63 (h8)
+     */
+    public static int SquareIndex(int File, int Rank) {
+        return ((Rank - 1) << 3) + (File - 1);
+    }
+
+    /**
+     * @param coordinate A coordinate object
+     * @return the square index of the coordinate
+     */
+    public static int SquareIndex(Coordinate coordinate) {
+        return coordinate.getSquareIndex();
+    }
+
+    /**
+     * @param square A square index (0-63)
+     * @return the file of the square (1-8)
+     */
+    public static int FileOf(int square) {
+        return (square & 7) + 1;
+    }
+
+    /**
+     * @param square A square index (0-63)
+     * @return the rank of the square (1-8)
+     */
+    public static int RankOf(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    /**
+     * @param square A square index (0-63)
+     * @return a bitboard with only the given square set
+     */
+    public static long SquareMask(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * Gets the index into a board's piece bitboards for a colour and piece type
+     *
+     * @param colour The colour of the piece
+     * @param type   The type of the piece
+     * @return an index from 0 to 11
+     */
+    public static int PieceIndex(Colour colour, PieceType type) {
+        return colour.ordinal() * 6 + type.ordinal();
+    }
+
+    /**
+     * @param pawns  A bitboard of pawns
+     * @param colour The colour of the pawns
+     * @return every square attacked by the pawns, shifting the whole set at once instead of looking up each pawn
+     */
+    public static long PawnAttacks(long pawns, Colour colour) {
+        if (colour == Colour.WHITE) {
+            return ((pawns << 7) & ~FILE_H) | ((pawns << 9) & ~FILE_A);
+        }
+        return ((pawns >>> 9) & ~FILE_H) | ((pawns >>> 7) & ~FILE_A);
+    }
+}
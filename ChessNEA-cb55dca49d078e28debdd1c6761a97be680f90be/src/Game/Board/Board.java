@@ -8,16 +8,76 @@ import Game.Piece.PieceType;
 import Game.Piece.Pieces.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class Board {
 
+    /**
+     * The FEN letter of each piece type, indexed by PieceType ordinal
+     */
+    private static final String FEN_PIECES = "kqrbnp";
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+
+    /*
+    The position is stored as a mailbox of pieces (indexed by square 0-63) and one bitboard per colour and piece type.
+    The square array is only a view of the position for the GUI and is rebuilt from the mailbox when it is requested
+     */
+    private final Piece[] PieceSquares = new Piece[64];
+    private final long[] PieceBitboards = new long[12];
+    private final long[] ColourOccupancy = new long[2];
+    private long Occupied;
+
     private final Square[][] BoardArray = new Square[8][8];
+    private boolean BoardArrayValid;
     private Pawn enPassantPawn;
+    private Colour SideToMove = Colour.WHITE;
+
+    /*
+    Zobrist key of the position, kept up to date as pieces are placed and removed and as the castling availability,
+    enPassant pawn and side to move change. EnPassantKeyFile is the file included in the key (0 if none)
+     */
+    private long ZobristKey;
+    private int EnPassantKeyFile;
+
+    /*
+    The FEN move counters: the number of halfmoves since the last capture or pawn move, and the number of the
+    current full move, which starts at 1 and goes up after each black move
+     */
+    private int HalfmoveClock;
+    private int FullmoveNumber = 1;
+
+    /*
+    Evaluation terms kept up to date as pieces are placed and removed: the middlegame and endgame piece-square scores
+    (material included, white minus black) and the game phase, see PieceSquareTables
+     */
+    private int MidgameScore;
+    private int EndgameScore;
+    private int Phase;
     private final Piece[] Kings = new Piece[2];
     private List<Piece> WhitePieces = new ArrayList<>();
     private List<Piece> BlackPieces = new ArrayList<>();
 
+    /*
+    Undo stack for moves made with Game.MakeMove(int, Board). Each entry holds the state an encoded move
+    cannot recover by itself: the captured and moved pieces, both kings castling availability and the enPassant pawn
+     */
+    private Piece[] UndoCapturedPieces = new Piece[64];
+    private Piece[] UndoMovedPieces = new Piece[64];
+    private CastlingAvailability[] UndoWhiteCastling = new CastlingAvailability[64];
+    private CastlingAvailability[] UndoBlackCastling = new CastlingAvailability[64];
+    private Pawn[] UndoEnPassantPawns = new Pawn[64];
+    private int UndoDepth;
+
+    /*
+    Position history: the Zobrist key and move counters before each move made on the board, in the game and in the search.
+    Repetitions are found by comparing keys, and the counters are restored from it when a move is reversed
+     */
+    private long[] HistoryKeys = new long[256];
+    private int[] HistoryHalfmoveClocks = new int[256];
+    private int[] HistoryFullmoveNumbers = new int[256];
+    private int HistoryLength;
+
     /**
      * Board constructor
      * creates a new board instance which calls the InitialiseBoard() method
@@ -27,6 +87,328 @@ public class Board {
         this.InitialiseBoard();
     }
 
+    /**
+     * Copy constructor. Every piece is copied so the new board can have moves made on it
+     * (for example by another search thread) without changing this board
+     *
+     * @param board The board to copy
+     */
+    public Board(Board board) {
+        for (Piece piece : board.WhitePieces) {
+            WhitePieces.add(PlaceCopy(piece));
+        }
+        for (Piece piece : board.BlackPieces) {
+            BlackPieces.add(PlaceCopy(piece));
+        }
+        Kings[0] = PieceSquares[board.getKingSquare(Colour.WHITE)];
+        Kings[1] = PieceSquares[board.getKingSquare(Colour.BLACK)];
+        if (board.enPassantPawn != null) {
+            setEnPassantPawn((Pawn) PieceSquares[Bitboards.SquareIndex(board.enPassantPawn.getPieceCoordinate())]);
+        }
+        SideToMove = board.SideToMove;
+        HalfmoveClock = board.HalfmoveClock;
+        FullmoveNumber = board.FullmoveNumber;
+        ZobristKey = ComputeZobristKey();
+        HistoryKeys = board.HistoryKeys.clone();
+        HistoryHalfmoveClocks = board.HistoryHalfmoveClocks.clone();
+        HistoryFullmoveNumbers = board.HistoryFullmoveNumbers.clone();
+        HistoryLength = board.HistoryLength;
+    }
+
+    /**
+     * Places a copy of a piece on the square it is on
+     *
+     * @param piece The piece to copy
+     * @return the copied piece
+     */
+    private Piece PlaceCopy(Piece piece) {
+        Coordinate coordinate = piece.getPieceCoordinate();
+        Piece copy;
+        if (piece instanceof Rook) {
+            copy = new Rook(coordinate, piece.getColour(), PieceType.ROOK, ((Rook) piece).getCastlingAvailability());
+        } else {
+            copy = Piece.CreatePiece(piece.getType(), coordinate, piece.getColour());
+            if (piece instanceof King) {
+                ((King) copy).setCastlingAvailability(((King) piece).getCastlingAvailability());
+            }
+        }
+        PlacePiece(copy, Bitboards.SquareIndex(coordinate));
+        return copy;
+    }
+
+    /**
+     * Creates a board from a position in Forsyth-Edwards Notation (FEN), eg - the starting position is
+     * rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1
+     * The halfmove clock and fullmove number are optional. The FEN is read one character at a time without
+     * splitting it, so the only objects created are the pieces and their coordinates
+     *
+     * @param fen The position in FEN
+     * @throws IllegalArgumentException if the position cannot be read
+     */
+    public Board(String fen) {
+        int length = fen.length();
+        int index = SkipSpaces(fen, 0);
+
+        //Piece placement, from rank 8 down to rank 1. Every rank must cover exactly 8 files
+        int rank = 8, file = 1;
+        for (; index < length && fen.charAt(index) != ' '; index++) {
+            char c = fen.charAt(index);
+            if (c == '/') {
+                if (file != 9 || rank == 1) {
+                    throw new IllegalArgumentException("Invalid FEN piece placement: " + fen);
+                }
+                rank--;
+                file = 1;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+                if (file > 9) {
+                    throw new IllegalArgumentException("Invalid FEN piece placement: " + fen);
+                }
+            } else {
+                int type = FEN_PIECES.indexOf(Character.toLowerCase(c));
+                if (type < 0 || rank < 1 || file > 8) {
+                    throw new IllegalArgumentException("Invalid FEN piece placement: " + fen);
+                }
+                PlaceNewPiece(PIECE_TYPES[type], Character.isUpperCase(c) ? Colour.WHITE : Colour.BLACK, file, rank);
+                file++;
+            }
+        }
+        if (rank != 1 || file != 9) {
+            throw new IllegalArgumentException("FEN piece placement must have 8 ranks of 8 files: " + fen);
+        }
+        if (Kings[0] == null || Kings[1] == null) {
+            throw new IllegalArgumentException("FEN must have a king for each colour: " + fen);
+        }
+
+        index = SkipSpaces(fen, index);
+        if (index < length && fen.charAt(index) == 'b') {
+            SideToMove = Colour.BLACK;
+        } else if (index >= length || fen.charAt(index) != 'w') {
+            throw new IllegalArgumentException("FEN side to move must be w or b: " + fen);
+        }
+        if (index + 1 < length && fen.charAt(index + 1) != ' ') {
+            throw new IllegalArgumentException("FEN side to move must be w or b: " + fen);
+        }
+
+        index = SkipSpaces(fen, index + 1);
+        boolean whiteKingSide = false, whiteQueenSide = false, blackKingSide = false, blackQueenSide = false;
+        for (; index < length && fen.charAt(index) != ' '; index++) {
+            switch (fen.charAt(index)) {
+                case 'K':
+                    whiteKingSide = true;
+                    break;
+                case 'Q':
+                    whiteQueenSide = true;
+                    break;
+                case 'k':
+                    blackKingSide = true;
+                    break;
+                case 'q':
+                    blackQueenSide = true;
+                    break;
+                case '-':
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid FEN castling availability: " + fen);
+            }
+        }
+        ((King) Kings[0]).setCastlingAvailability(FenCastling(whiteKingSide, whiteQueenSide));
+        ((King) Kings[1]).setCastlingAvailability(FenCastling(blackKingSide, blackQueenSide));
+
+        //The enPassant field is the square behind the pawn which has just moved two squares
+        index = SkipSpaces(fen, index);
+        if (index < length && fen.charAt(index) != '-') {
+            int enPassantFile = fen.charAt(index) - 'a' + 1;
+            char enPassantRank = index + 1 < length ? fen.charAt(index + 1) : ' ';
+            Piece pawn = null;
+            if (enPassantFile >= 1 && enPassantFile <= 8 && (enPassantRank == '3' || enPassantRank == '6')) {
+                pawn = PieceSquares[Bitboards.SquareIndex(enPassantFile, enPassantRank == '3' ? 4 : 5)];
+            }
+            if (!(pawn instanceof Pawn)) {
+                throw new IllegalArgumentException("FEN enPassant square has no pawn in front of it: " + fen);
+            }
+            //A pawn which has just moved two squares belongs to the side which is not to move
+            if (pawn.getColour() != (enPassantRank == '3' ? Colour.WHITE : Colour.BLACK) || pawn.getColour() == SideToMove
+                    || (index + 2 < length && fen.charAt(index + 2) != ' ')) {
+                throw new IllegalArgumentException("Invalid FEN enPassant square: " + fen);
+            }
+            setEnPassantPawn((Pawn) pawn);
+            index += 2;
+        } else if (index < length) {
+            index++;
+        } else {
+            throw new IllegalArgumentException("FEN must have an enPassant field: " + fen);
+        }
+
+        //The move counters are left at 0 and 1 if they are missing
+        index = SkipSpaces(fen, index);
+        if (index < length) {
+            HalfmoveClock = ParseFenNumber(fen, index);
+            index = SkipSpaces(fen, SkipNumber(fen, index));
+            if (index < length) {
+                FullmoveNumber = ParseFenNumber(fen, index);
+            }
+        }
+
+        ZobristKey = ComputeZobristKey();
+    }
+
+    /**
+     * Creates a board from a position snapshot. The board has its own new pieces, so it does not share anything
+     * with the board the snapshot was taken from
+     *
+     * @param position The position to set up
+     */
+    public Board(Position position) {
+        for (Colour colour : Colour.values()) {
+            for (PieceType type : PIECE_TYPES) {
+                long pieces = position.getPieceBitboard(colour, type);
+                while (pieces != 0) {
+                    int square = Long.numberOfTrailingZeros(pieces);
+                    pieces &= pieces - 1;
+                    PlaceNewPiece(type, colour, Bitboards.FileOf(square), Bitboards.RankOf(square));
+                }
+            }
+        }
+        ((King) Kings[0]).setCastlingAvailability(position.getCastlingAvailability(Colour.WHITE));
+        ((King) Kings[1]).setCastlingAvailability(position.getCastlingAvailability(Colour.BLACK));
+        int enPassantSquare = position.getEnPassantSquare();
+        if (enPassantSquare >= 0) {
+            //The pawn is in front of the square it can be captured on
+            setEnPassantPawn((Pawn) PieceSquares[enPassantSquare + (Bitboards.RankOf(enPassantSquare) == 3 ? 8 : -8)]);
+        }
+        SideToMove = position.getSideToMove();
+        HalfmoveClock = position.getHalfmoveClock();
+        FullmoveNumber = position.getFullmoveNumber();
+        ZobristKey = ComputeZobristKey();
+    }
+
+    /**
+     * Writes the position in Forsyth-Edwards Notation (FEN)
+     *
+     * @return the FEN of the position, including the castling availability, enPassant square and move counters
+     */
+    public String ToFen() {
+        StringBuilder fen = new StringBuilder(90);
+        for (int rank = 8; rank >= 1; rank--) {
+            int emptySquares = 0;
+            for (int file = 1; file <= 8; file++) {
+                Piece piece = PieceSquares[Bitboards.SquareIndex(file, rank)];
+                if (piece == null) {
+                    emptySquares++;
+                    continue;
+                }
+                if (emptySquares > 0) {
+                    fen.append(emptySquares);
+                    emptySquares = 0;
+                }
+                char symbol = FEN_PIECES.charAt(piece.getType().ordinal());
+                fen.append(piece.getColour() == Colour.WHITE ? Character.toUpperCase(symbol) : symbol);
+            }
+            if (emptySquares > 0) {
+                fen.append(emptySquares);
+            }
+            if (rank > 1) {
+                fen.append('/');
+            }
+        }
+
+        fen.append(SideToMove == Colour.WHITE ? " w " : " b ");
+
+        int castlingStart = fen.length();
+        AppendFenCastling(fen, ((King) Kings[0]).getCastlingAvailability(), 'K', 'Q');
+        AppendFenCastling(fen, ((King) Kings[1]).getCastlingAvailability(), 'k', 'q');
+        if (fen.length() == castlingStart) {
+            fen.append('-');
+        }
+
+        fen.append(' ');
+        if (enPassantPawn == null) {
+            fen.append('-');
+        } else {
+            fen.append((char) ('a' + enPassantPawn.getPieceCoordinate().getFile() - 1));
+            fen.append(enPassantPawn.getColour() == Colour.WHITE ? '3' : '6');
+        }
+
+        fen.append(' ').append(HalfmoveClock).append(' ').append(FullmoveNumber);
+        return fen.toString();
+    }
+
+    /**
+     * Places a new piece read from a FEN or a Position. Rooks in the corners are tagged with the side they castle on
+     */
+    private void PlaceNewPiece(PieceType type, Colour colour, int file, int rank) {
+        Coordinate coordinate = Coordinate.Of(file, rank);
+        Piece piece;
+        if (type == PieceType.ROOK && rank == (colour == Colour.WHITE ? 1 : 8) && (file == 1 || file == 8)) {
+            piece = new Rook(coordinate, colour, type, file == 1 ? CastlingAvailability.QUEEN_SIDE : CastlingAvailability.KING_SIDE);
+        } else {
+            piece = Piece.CreatePiece(type, coordinate, colour);
+        }
+        if (type == PieceType.KING) {
+            Kings[colour.ordinal()] = piece;
+        }
+        PlacePiece(piece, Bitboards.SquareIndex(file, rank));
+        (colour == Colour.WHITE ? WhitePieces : BlackPieces).add(piece);
+    }
+
+    private static void AppendFenCastling(StringBuilder fen, CastlingAvailability castlingAvailability, char kingSide, char queenSide) {
+        if (castlingAvailability == CastlingAvailability.KING_SIDE || castlingAvailability == CastlingAvailability.BOTH) {
+            fen.append(kingSide);
+        }
+        if (castlingAvailability == CastlingAvailability.QUEEN_SIDE || castlingAvailability == CastlingAvailability.BOTH) {
+            fen.append(queenSide);
+        }
+    }
+
+    private static CastlingAvailability FenCastling(boolean kingSide, boolean queenSide) {
+        if (kingSide && queenSide) {
+            return CastlingAvailability.BOTH;
+        } else if (kingSide) {
+            return CastlingAvailability.KING_SIDE;
+        } else if (queenSide) {
+            return CastlingAvailability.QUEEN_SIDE;
+        }
+        return CastlingAvailability.NEITHER;
+    }
+
+    /**
+     * @return the index of the first character at or after index which is not a space
+     */
+    private static int SkipSpaces(String fen, int index) {
+        while (index < fen.length() && fen.charAt(index) == ' ') {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * @return the index of the first character at or after index which is not a digit
+     */
+    private static int SkipNumber(String fen, int index) {
+        while (index < fen.length() && fen.charAt(index) >= '0' && fen.charAt(index) <= '9') {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Reads a move counter without creating a substring
+     *
+     * @return the number starting at index
+     */
+    private static int ParseFenNumber(String fen, int index) {
+        int end = SkipNumber(fen, index);
+        if (end == index || end - index > 9) {
+            throw new IllegalArgumentException("Invalid FEN move counter: " + fen);
+        }
+        int number = 0;
+        for (; index < end; index++) {
+            number = number * 10 + fen.charAt(index) - '0';
+        }
+        return number;
+    }
+
     /**
      * Sets up a new board array and puts all pieces into their start locations
      * Creates all piece objects
@@ -34,69 +416,265 @@ public class Board {
      */
     public void InitialiseBoard() {
         //Initialise White Special Pieces
-        BoardArray[0][0] = new Square.OccupiedSquare(1, 1,
-                new Rook(new Coordinate(1, 1), Colour.WHITE, PieceType.ROOK, CastlingAvailability.QUEEN_SIDE));
-        BoardArray[0][1] = new Square.OccupiedSquare(2, 1,
-                new Knight(new Coordinate(2, 1), Colour.WHITE, PieceType.KNIGHT));
-        BoardArray[0][2] = new Square.OccupiedSquare(3, 1,
-                new Bishop(new Coordinate(3, 1), Colour.WHITE, PieceType.BISHOP));
-        BoardArray[0][3] = new Square.OccupiedSquare(4, 1,
-                new Queen(new Coordinate(4, 1), Colour.WHITE, PieceType.QUEEN));
-        BoardArray[0][4] = new Square.OccupiedSquare(5, 1,
-                new King(new Coordinate(5, 1), Colour.WHITE, PieceType.KING));
-        BoardArray[0][5] = new Square.OccupiedSquare(6, 1,
-                new Bishop(new Coordinate(6, 1), Colour.WHITE, PieceType.BISHOP));
-        BoardArray[0][6] = new Square.OccupiedSquare(7, 1,
-                new Knight(new Coordinate(7, 1), Colour.WHITE, PieceType.KNIGHT));
-        BoardArray[0][7] = new Square.OccupiedSquare(8, 1,
-                new Rook(new Coordinate(8, 1), Colour.WHITE, PieceType.ROOK, CastlingAvailability.KING_SIDE));
-        Kings[0] = BoardArray[0][4].ReturnPiece();
-        for (int i = 0; i < 8; i++) {
-            WhitePieces.add(BoardArray[0][i].ReturnPiece());
+        PlacePiece(new Rook(new Coordinate(1, 1), Colour.WHITE, PieceType.ROOK, CastlingAvailability.QUEEN_SIDE), Bitboards.SquareIndex(1, 1));
+        PlacePiece(new Knight(new Coordinate(2, 1), Colour.WHITE, PieceType.KNIGHT), Bitboards.SquareIndex(2, 1));
+        PlacePiece(new Bishop(new Coordinate(3, 1), Colour.WHITE, PieceType.BISHOP), Bitboards.SquareIndex(3, 1));
+        PlacePiece(new Queen(new Coordinate(4, 1), Colour.WHITE, PieceType.QUEEN), Bitboards.SquareIndex(4, 1));
+        PlacePiece(new King(new Coordinate(5, 1), Colour.WHITE, PieceType.KING), Bitboards.SquareIndex(5, 1));
+        PlacePiece(new Bishop(new Coordinate(6, 1), Colour.WHITE, PieceType.BISHOP), Bitboards.SquareIndex(6, 1));
+        PlacePiece(new Knight(new Coordinate(7, 1), Colour.WHITE, PieceType.KNIGHT), Bitboards.SquareIndex(7, 1));
+        PlacePiece(new Rook(new Coordinate(8, 1), Colour.WHITE, PieceType.ROOK, CastlingAvailability.KING_SIDE), Bitboards.SquareIndex(8, 1));
+        Kings[0] = PieceSquares[Bitboards.SquareIndex(5, 1)];
+        for (int i = 1; i <= 8; i++) {
+            WhitePieces.add(PieceSquares[Bitboards.SquareIndex(i, 1)]);
         }
 
         //Initialise Black Special Pieces
-        BoardArray[7][0] = new Square.OccupiedSquare(1, 8,
-                new Rook(new Coordinate(1, 8), Colour.BLACK, PieceType.ROOK, CastlingAvailability.QUEEN_SIDE));
-        BoardArray[7][1] = new Square.OccupiedSquare(2, 8,
-                new Knight(new Coordinate(2, 8), Colour.BLACK, PieceType.KNIGHT));
-        BoardArray[7][2] = new Square.OccupiedSquare(3, 8,
-                new Bishop(new Coordinate(3, 8), Colour.BLACK, PieceType.BISHOP));
-        BoardArray[7][3] = new Square.OccupiedSquare(4, 8,
-                new Queen(new Coordinate(4, 8), Colour.BLACK, PieceType.QUEEN));
-        BoardArray[7][4] = new Square.OccupiedSquare(5, 8,
-                new King(new Coordinate(5, 8), Colour.BLACK, PieceType.KING));
-        BoardArray[7][5] = new Square.OccupiedSquare(6, 8,
-                new Bishop(new Coordinate(6, 8), Colour.BLACK, PieceType.BISHOP));
-        BoardArray[7][6] = new Square.OccupiedSquare(7, 8,
-                new Knight(new Coordinate(7, 8), Colour.BLACK, PieceType.KNIGHT));
-        BoardArray[7][7] = new Square.OccupiedSquare(8, 8,
-                new Rook(new Coordinate(8, 8), Colour.BLACK, PieceType.ROOK, CastlingAvailability.KING_SIDE));
-        Kings[1] = BoardArray[7][4].ReturnPiece();
-        for (int i = 0; i < 8; i++) {
-            BlackPieces.add(BoardArray[7][i].ReturnPiece());
+        PlacePiece(new Rook(new Coordinate(1, 8), Colour.BLACK, PieceType.ROOK, CastlingAvailability.QUEEN_SIDE), Bitboards.SquareIndex(1, 8));
+        PlacePiece(new Knight(new Coordinate(2, 8), Colour.BLACK, PieceType.KNIGHT), Bitboards.SquareIndex(2, 8));
+        PlacePiece(new Bishop(new Coordinate(3, 8), Colour.BLACK, PieceType.BISHOP), Bitboards.SquareIndex(3, 8));
+        PlacePiece(new Queen(new Coordinate(4, 8), Colour.BLACK, PieceType.QUEEN), Bitboards.SquareIndex(4, 8));
+        PlacePiece(new King(new Coordinate(5, 8), Colour.BLACK, PieceType.KING), Bitboards.SquareIndex(5, 8));
+        PlacePiece(new Bishop(new Coordinate(6, 8), Colour.BLACK, PieceType.BISHOP), Bitboards.SquareIndex(6, 8));
+        PlacePiece(new Knight(new Coordinate(7, 8), Colour.BLACK, PieceType.KNIGHT), Bitboards.SquareIndex(7, 8));
+        PlacePiece(new Rook(new Coordinate(8, 8), Colour.BLACK, PieceType.ROOK, CastlingAvailability.KING_SIDE), Bitboards.SquareIndex(8, 8));
+        Kings[1] = PieceSquares[Bitboards.SquareIndex(5, 8)];
+        for (int i = 1; i <= 8; i++) {
+            BlackPieces.add(PieceSquares[Bitboards.SquareIndex(i, 8)]);
         }
 
         //Initialise Pawn Pieces
-        for (int i = 0; i < 8; i++) {
+        for (int i = 1; i <= 8; i++) {
 
             //White Pawns
-            BoardArray[1][i] = new Square.OccupiedSquare(i + 1, 2,
-                    new Pawn(new Coordinate(i + 1, 2), Colour.WHITE, PieceType.PAWN));
-            WhitePieces.add(BoardArray[1][i].ReturnPiece());
+            Pawn whitePawn = new Pawn(new Coordinate(i, 2), Colour.WHITE, PieceType.PAWN);
+            PlacePiece(whitePawn, Bitboards.SquareIndex(i, 2));
+            WhitePieces.add(whitePawn);
 
             //Black Pawns
-            BoardArray[6][i] = new Square.OccupiedSquare(i + 1, 7,
-                    new Pawn(new Coordinate(i + 1, 7), Colour.BLACK, PieceType.PAWN));
-            BlackPieces.add(BoardArray[6][i].ReturnPiece());
+            Pawn blackPawn = new Pawn(new Coordinate(i, 7), Colour.BLACK, PieceType.PAWN);
+            PlacePiece(blackPawn, Bitboards.SquareIndex(i, 7));
+            BlackPieces.add(blackPawn);
         }
 
-        //Initialise Empty Squares
-        for (int i = 2; i < 6; i++) {       //Y-Coordinates
-            for (int j = 0; j < 8; j++) {    //X-Coordinates
-                BoardArray[i][j] = new Square.EmptySquare(j + 1, i + 1);
+        ZobristKey = ComputeZobristKey();
+    }
+
+    /**
+     * Puts a piece onto an empty square, updating the mailbox and the bitboards.
+     * The pieces own coordinate is not changed.
+     *
+     * @param piece  The piece being placed
+     * @param square The square index (0-63) the piece is placed on
+     */
+    public void PlacePiece(Piece piece, int square) {
+        long mask = Bitboards.SquareMask(square);
+        PieceSquares[square] = piece;
+        ZobristKey ^= Zobrist.PieceKey(piece, square);
+        MidgameScore += PieceSquareTables.Midgame(piece, square);
+        EndgameScore += PieceSquareTables.Endgame(piece, square);
+        Phase += PieceSquareTables.PhaseWeight(piece.getType());
+        PieceBitboards[Bitboards.PieceIndex(piece.getColour(), piece.getType())] |= mask;
+        ColourOccupancy[piece.getColour().ordinal()] |= mask;
+        Occupied |= mask;
+        BoardArrayValid = false;
+    }
+
+    /**
+     * Takes the piece off a square, updating the mailbox and the bitboards
+     *
+     * @param square The square index (0-63) to clear
+     * @return the piece which was on the square, or null if the square was empty
+     */
+    public Piece RemovePiece(int square) {
+        Piece piece = PieceSquares[square];
+        if (piece != null) {
+            long mask = ~Bitboards.SquareMask(square);
+            PieceSquares[square] = null;
+            ZobristKey ^= Zobrist.PieceKey(piece, square);
+            MidgameScore -= PieceSquareTables.Midgame(piece, square);
+            EndgameScore -= PieceSquareTables.Endgame(piece, square);
+            Phase -= PieceSquareTables.PhaseWeight(piece.getType());
+            PieceBitboards[Bitboards.PieceIndex(piece.getColour(), piece.getType())] &= mask;
+            ColourOccupancy[piece.getColour().ordinal()] &= mask;
+            Occupied &= mask;
+            BoardArrayValid = false;
+        }
+        return piece;
+    }
+
+    /**
+     * @param square A square index (0-63)
+     * @return the piece on the square, or null if the square is empty
+     */
+    public Piece getPieceAt(int square) {
+        return PieceSquares[square];
+    }
+
+    /**
+     * @param colour The colour of the pieces
+     * @param type   The type of the pieces
+     * @return a bitboard of every square holding a piece of that colour and type
+     */
+    public long getPieceBitboard(Colour colour, PieceType type) {
+        return PieceBitboards[Bitboards.PieceIndex(colour, type)];
+    }
+
+    /**
+     * @param colour The colour of the pieces
+     * @return a bitboard of every square holding a piece of that colour
+     */
+    public long getColourOccupancy(Colour colour) {
+        return ColourOccupancy[colour.ordinal()];
+    }
+
+    /**
+     * @return a bitboard of every occupied square
+     */
+    public long getOccupied() {
+        return Occupied;
+    }
+
+    /**
+     * @param colour The colour of the king
+     * @return the square index of that colours king
+     */
+    public int getKingSquare(Colour colour) {
+        return Long.numberOfTrailingZeros(PieceBitboards[Bitboards.PieceIndex(colour, PieceType.KING)]);
+    }
+
+    /**
+     * @return the square index an enPassant capture would move to, or -1 if there is no enPassant pawn
+     */
+    public int getEnPassantSquare() {
+        if (enPassantPawn == null) {
+            return -1;
+        }
+        return Bitboards.SquareIndex(enPassantPawn.getPieceCoordinate().getFile(), enPassantPawn.getColour() == Colour.WHITE ? 3 : 6);
+    }
+
+    /**
+     * Saves the state needed to reverse an encoded move, before the move changes it.
+     * The undo arrays grow if the search goes deeper than their current size.
+     *
+     * @param capturedPiece The piece captured by the move, or null
+     * @param movedPiece    The piece being moved (the pawn for a promotion)
+     */
+    public void PushUndoState(Piece capturedPiece, Piece movedPiece) {
+        if (UndoDepth == UndoMovedPieces.length) {
+            int size = UndoDepth * 2;
+            UndoCapturedPieces = Arrays.copyOf(UndoCapturedPieces, size);
+            UndoMovedPieces = Arrays.copyOf(UndoMovedPieces, size);
+            UndoWhiteCastling = Arrays.copyOf(UndoWhiteCastling, size);
+            UndoBlackCastling = Arrays.copyOf(UndoBlackCastling, size);
+            UndoEnPassantPawns = Arrays.copyOf(UndoEnPassantPawns, size);
+        }
+        UndoCapturedPieces[UndoDepth] = capturedPiece;
+        UndoMovedPieces[UndoDepth] = movedPiece;
+        UndoWhiteCastling[UndoDepth] = ((King) Kings[0]).getCastlingAvailability();
+        UndoBlackCastling[UndoDepth] = ((King) Kings[1]).getCastlingAvailability();
+        UndoEnPassantPawns[UndoDepth] = enPassantPawn;
+        UndoDepth++;
+    }
+
+    /**
+     * Restores the castling availability and enPassant pawn saved by the last PushUndoState call
+     * and removes it from the stack
+     */
+    public void PopUndoState() {
+        UndoDepth--;
+        setCastlingAvailability(Colour.WHITE, UndoWhiteCastling[UndoDepth]);
+        setCastlingAvailability(Colour.BLACK, UndoBlackCastling[UndoDepth]);
+        setEnPassantPawn(UndoEnPassantPawns[UndoDepth]);
+        UndoCapturedPieces[UndoDepth] = null;
+        UndoMovedPieces[UndoDepth] = null;
+        UndoEnPassantPawns[UndoDepth] = null;
+    }
+
+    /**
+     * Adds the current position to the history and advances the move counters, called when a move is made
+     * before the side to move is switched. The history grows if the game or search goes past its current size.
+     *
+     * @param resetsHalfmoveClock True for a capture or pawn move, after which no earlier position can be repeated
+     */
+    public void PushHistory(boolean resetsHalfmoveClock) {
+        if (HistoryLength == HistoryKeys.length) {
+            int size = HistoryLength * 2;
+            HistoryKeys = Arrays.copyOf(HistoryKeys, size);
+            HistoryHalfmoveClocks = Arrays.copyOf(HistoryHalfmoveClocks, size);
+            HistoryFullmoveNumbers = Arrays.copyOf(HistoryFullmoveNumbers, size);
+        }
+        HistoryKeys[HistoryLength] = ZobristKey;
+        HistoryHalfmoveClocks[HistoryLength] = HalfmoveClock;
+        HistoryFullmoveNumbers[HistoryLength] = FullmoveNumber;
+        HistoryLength++;
+
+        HalfmoveClock = resetsHalfmoveClock ? 0 : HalfmoveClock + 1;
+        if (SideToMove == Colour.BLACK) {
+            FullmoveNumber++;
+        }
+    }
+
+    /**
+     * Removes the last position from the history and restores the move counters, called when a move is reversed
+     */
+    public void PopHistory() {
+        HistoryLength--;
+        HalfmoveClock = HistoryHalfmoveClocks[HistoryLength];
+        FullmoveNumber = HistoryFullmoveNumbers[HistoryLength];
+    }
+
+    /**
+     * Counts the earlier occurrences of the current position. Only positions with the same side to move since the
+     * last capture or pawn move (within the halfmove clock) can be the same, so at most that many keys are compared
+     *
+     * @return the number of times the position has occurred before
+     */
+    public int getRepetitionCount() {
+        int repetitions = 0;
+        int oldest = Math.max(HistoryLength - HalfmoveClock, 0);
+        for (int i = HistoryLength - 2; i >= oldest; i -= 2) {
+            if (HistoryKeys[i] == ZobristKey) {
+                repetitions++;
+            }
+        }
+        return repetitions;
+    }
+
+    /**
+     * @return the piece captured by the last encoded move which has not been reversed, or null
+     */
+    public Piece getLastCapturedPiece() {
+        return UndoCapturedPieces[UndoDepth - 1];
+    }
+
+    /**
+     * @return the piece moved by the last encoded move which has not been reversed
+     */
+    public Piece getLastMovedPiece() {
+        return UndoMovedPieces[UndoDepth - 1];
+    }
+
+    /**
+     * Rebuilds the square array from the mailbox. Squares whose contents have not changed are kept
+     * so that only the squares touched since the last call are reallocated.
+     */
+    private void MaterialiseBoardArray() {
+        for (int square = 0; square < 64; square++) {
+            int rank = square >>> 3;
+            int file = square & 7;
+            Square current = BoardArray[rank][file];
+            Piece piece = PieceSquares[square];
+
+            if (current == null || current.ReturnPiece() != piece) {
+                if (piece == null) {
+                    BoardArray[rank][file] = new Square.EmptySquare(file + 1, rank + 1);
+                } else {
+                    BoardArray[rank][file] = new Square.OccupiedSquare(file + 1, rank + 1, piece);
+                }
             }
         }
+        BoardArrayValid = true;
     }
 
 
@@ -110,7 +688,7 @@ public class Board {
         int X_coordinate = coordinate.getFile();
         int Y_coordinate = coordinate.getRank();
 
-        return BoardArray[Y_coordinate - 1][X_coordinate - 1];
+        return getBoardArray()[Y_coordinate - 1][X_coordinate - 1];
     }
 
     /**
@@ -120,13 +698,8 @@ public class Board {
 
         try {
             int File = enPassantPawn.getPieceCoordinate().getFile();
-            Coordinate Destination;
-            if (enPassantPawn.getColour() == Colour.WHITE) {
-                Destination = new Coordinate(File, 3);
-            } else {
-                Destination = new Coordinate(File, 6);
-            }
-            return Destination.GetSquareAt(BoardArray);
+            int Rank = enPassantPawn.getColour() == Colour.WHITE ? 3 : 6;
+            return getBoardArray()[Rank - 1][File - 1];
 
         } catch (NullPointerException exception) {
             System.out.println("EnPassant Pawn does not exist");
@@ -135,9 +708,15 @@ public class Board {
     }
 
     /**
+     * The square array is a view of the position which is only rebuilt when the position has changed
+     * since it was last requested.
+     *
      * @return an Array of square objects (the board)
      */
     public Square[][] getBoardArray() {
+        if (!BoardArrayValid) {
+            MaterialiseBoardArray();
+        }
         return BoardArray;
     }
 
@@ -180,7 +759,116 @@ public class Board {
      * @param pawn The pawn to be set as the enPassant pawn
      */
     public void setEnPassantPawn(Pawn pawn) {
+        if (EnPassantKeyFile != 0) {
+            ZobristKey ^= Zobrist.EnPassantKey(EnPassantKeyFile);
+        }
         this.enPassantPawn = pawn;
+        EnPassantKeyFile = pawn == null ? 0 : pawn.getPieceCoordinate().getFile();
+        if (EnPassantKeyFile != 0) {
+            ZobristKey ^= Zobrist.EnPassantKey(EnPassantKeyFile);
+        }
+    }
+
+    /**
+     * Changes a kings castling availability and updates the Zobrist key. This should be used
+     * rather than King.setCastlingAvailability for kings on the board
+     *
+     * @param colour               The colour of the king
+     * @param castlingAvailability The new castling availability
+     */
+    public void setCastlingAvailability(Colour colour, CastlingAvailability castlingAvailability) {
+        King king = (King) Kings[colour.ordinal()];
+        ZobristKey ^= Zobrist.CastlingKey(colour, king.getCastlingAvailability());
+        king.setCastlingAvailability(castlingAvailability);
+        ZobristKey ^= Zobrist.CastlingKey(colour, castlingAvailability);
+    }
+
+    /**
+     * @return the colour of the side to move
+     */
+    public Colour getSideToMove() {
+        return SideToMove;
+    }
+
+    /**
+     * Sets the side to move and updates the Zobrist key
+     *
+     * @param colour The colour of the side to move
+     */
+    public void setSideToMove(Colour colour) {
+        if (colour != SideToMove) {
+            SwitchSideToMove();
+        }
+    }
+
+    /**
+     * Passes the move to the other side, called when a move is made or reversed
+     */
+    public void SwitchSideToMove() {
+        SideToMove = Colour.GetOtherColour(SideToMove);
+        ZobristKey ^= Zobrist.SideKey();
+    }
+
+    public int getHalfmoveClock() {
+        return HalfmoveClock;
+    }
+
+    public void setHalfmoveClock(int halfmoveClock) {
+        HalfmoveClock = halfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return FullmoveNumber;
+    }
+
+    public void setFullmoveNumber(int fullmoveNumber) {
+        FullmoveNumber = fullmoveNumber;
+    }
+
+    /**
+     * @return the Zobrist key of the current position
+     */
+    public long getZobristKey() {
+        return ZobristKey;
+    }
+
+    /**
+     * @return the material and piece-square score of the position in centipawns, blended between the middlegame
+     * and endgame scores by the game phase. Positive scores are better for white
+     */
+    public int getTaperedScore() {
+        return PieceSquareTables.Taper(MidgameScore, EndgameScore, Phase);
+    }
+
+    /**
+     * @return the game phase, from PieceSquareTables.MAX_PHASE at the start towards 0 in the endgame
+     */
+    public int getPhase() {
+        return Phase;
+    }
+
+    /**
+     * Calculates the Zobrist key of the position from scratch. The key is normally updated incrementally,
+     * this is used to set it up and to check the incremental updates
+     *
+     * @return the Zobrist key of the current position
+     */
+    public long ComputeZobristKey() {
+        long key = 0;
+        for (int square = 0; square < 64; square++) {
+            if (PieceSquares[square] != null) {
+                key ^= Zobrist.PieceKey(PieceSquares[square], square);
+            }
+        }
+        key ^= Zobrist.CastlingKey(Colour.WHITE, ((King) Kings[0]).getCastlingAvailability());
+        key ^= Zobrist.CastlingKey(Colour.BLACK, ((King) Kings[1]).getCastlingAvailability());
+        if (enPassantPawn != null) {
+            key ^= Zobrist.EnPassantKey(enPassantPawn.getPieceCoordinate().getFile());
+        }
+        if (SideToMove == Colour.BLACK) {
+            key ^= Zobrist.SideKey();
+        }
+        return key;
     }
 
     public Piece[] getKings() {
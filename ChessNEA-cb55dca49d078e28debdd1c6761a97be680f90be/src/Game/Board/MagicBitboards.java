@@ -0,0 +1,168 @@
+package Game.Board;
+
+/**
+ * Precomputed attack tables for the sliding pieces (rooks, bishops and queens).
+ * For each square the occupancy of the squares a slider could be blocked on is multiplied by a magic number,
+ * and the top bits of the product index a table holding the attacked squares for that occupancy.
+ * The tables are filled in once when the class is loaded.
+ */
+public final class MagicBitboards {
+
+    private static final int[] ROOK_DIRECTIONS = {8, -8, 1, -1};
+    private static final int[] BISHOP_DIRECTIONS = {9, 7, -7, -9};
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] ROOK_MAGICS = {
+            0x008000908064C000L, 0x0040200040001000L, 0x0180100080A0010AL, 0x8880041000800800L,
+            0x1200100201200804L, 0x0200020004011008L, 0x2180010000800600L, 0x0200005088210204L,
+            0x0400800040008021L, 0x0400400020005000L, 0x8240801000200080L, 0x8611001004200900L,
+            0x008180800C001800L, 0x0100800200800400L, 0x0A02000102000408L, 0x8020802300104280L,
+            0x0080004000402000L, 0xE010104000402000L, 0x0800808010002000L, 0xA280210008100100L,
+            0x0001818014000800L, 0xA002010100080400L, 0x0080240001020870L, 0x0001020004048845L,
+            0x0081826280004004L, 0x2020810900284000L, 0x0200100080802000L, 0x0200080080100080L,
+            0x8083080100100500L, 0x4406000901000400L, 0x0005020080800100L, 0x0090204200008114L,
+            0x0010400094800420L, 0x0900804000802002L, 0x0201001841002000L, 0x4100080080801000L,
+            0x4540040080800800L, 0x0002001004040020L, 0x0281195814001002L, 0x1240800040800100L,
+            0x0880042000524004L, 0x02C080410206002CL, 0x0801200241050010L, 0x8400080010008080L,
+            0x0008000500090010L, 0x0082009084020008L, 0x4012000108020004L, 0x9000104D08860004L,
+            0x2004204114800100L, 0x0148802112400300L, 0x0202842000100880L, 0x001B080080900080L,
+            0x001A002008100600L, 0x0004008004020080L, 0x5181000600040300L, 0x0000044401128A00L,
+            0x8044110480002441L, 0x2008110084402202L, 0x90806005090010C1L, 0x000420310A004A42L,
+            0x0023001004020801L, 0x0882001008040102L, 0x000230088118020CL, 0x0000019025040042L
+    };
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] ROOK_ATTACKS;
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final long[] BISHOP_MAGICS = {
+            0x0045010808008680L, 0x2002080204004898L, 0x0210009A10400006L, 0x0824050200810200L,
+            0x0006061105004090L, 0x00010108C0000000L, 0x0814040282104004L, 0x0012012201106800L,
+            0x10823014100C1040L, 0x0080C2088802808CL, 0x0281108410404000L, 0x0101212041826200L,
+            0x0020141028221058L, 0x2201020202200202L, 0x000082A801482000L, 0x0000008401411044L,
+            0x0007103014300404L, 0x0002091110010100L, 0x42140012040C0808L, 0x0800808802004020L,
+            0x90C4004210140000L, 0x0800200900A01000L, 0x00D0400201108810L, 0x80820183814412A0L,
+            0x00A01008202202B4L, 0x01C2021A09500402L, 0x0084440208042400L, 0x800400400C090100L,
+            0xBA10040010802100L, 0xD182009006005000L, 0x5011021001009004L, 0x0020420200510400L,
+            0x0292104000468800L, 0x00043009091C0500L, 0x0280441000020025L, 0x0042820080080080L,
+            0x0440101010010040L, 0x1000900100808080L, 0x0108108120089800L, 0x0044010200012682L,
+            0xC002500420900400L, 0x0040482210710800L, 0x0002060024000200L, 0x0281020A44000800L,
+            0xA0021200A4000200L, 0x0001301000840840L, 0x2868500108444220L, 0x0004111041000200L,
+            0x8044020842080200L, 0x0000220104210200L, 0x0000021201044000L, 0x0000280884040028L,
+            0x4012114010858003L, 0x0000081004082B88L, 0x3892700508208002L, 0x00220A041B060400L,
+            0x0812020284014881L, 0x010434A282103100L, 0x0490400824020800L, 0x4A20002C00208800L,
+            0x000000A011020200L, 0x4002940A02482202L, 0x5100100202140406L, 0x02102000840540C1L
+    };
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] BISHOP_ATTACKS;
+
+    static {
+        ROOK_ATTACKS = InitialiseTables(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS);
+        BISHOP_ATTACKS = InitialiseTables(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+    }
+
+    private MagicBitboards() {
+    }
+
+    /**
+     * @param square   The square index (0-63) of the rook
+     * @param occupied A bitboard of every occupied square
+     * @return a bitboard of every square the rook attacks, including the first blocking piece on each line
+     */
+    public static long getRookAttacks(int square, long occupied) {
+        int index = (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+        return ROOK_ATTACKS[ROOK_OFFSETS[square] + index];
+    }
+
+    /**
+     * @param square   The square index (0-63) of the bishop
+     * @param occupied A bitboard of every occupied square
+     * @return a bitboard of every square the bishop attacks, including the first blocking piece on each line
+     */
+    public static long getBishopAttacks(int square, long occupied) {
+        int index = (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+        return BISHOP_ATTACKS[BISHOP_OFFSETS[square] + index];
+    }
+
+    /**
+     * @param square   The square index (0-63) of the queen
+     * @param occupied A bitboard of every occupied square
+     * @return a bitboard of every square the queen attacks
+     */
+    public static long getQueenAttacks(int square, long occupied) {
+        return getRookAttacks(square, occupied) | getBishopAttacks(square, occupied);
+    }
+
+    /**
+     * Builds the masks and attack table for one type of slider
+     *
+     * @param directions The square index steps the slider moves in
+     * @param masks      Filled with the squares which can block the slider on each square
+     * @param magics     The magic number for each square
+     * @param shifts     Filled with the shift which reduces the product to a table index
+     * @param offsets    Filled with the start of each squares section of the table
+     * @return the attack table shared by all squares
+     */
+    private static long[] InitialiseTables(int[] directions, long[] masks, long[] magics, int[] shifts, int[] offsets) {
+        int tableSize = 0;
+        for (int square = 0; square < 64; square++) {
+            masks[square] = SlidingAttacks(square, 0L, directions, true);
+            int bits = Long.bitCount(masks[square]);
+            shifts[square] = 64 - bits;
+            offsets[square] = tableSize;
+            tableSize += 1 << bits;
+        }
+
+        long[] table = new long[tableSize];
+        for (int square = 0; square < 64; square++) {
+            //Enumerate every subset of the mask (carry-rippler) and store its attacks at the magic index
+            long subset = 0;
+            do {
+                long attacks = SlidingAttacks(square, subset, directions, false);
+                int index = offsets[square] + (int) ((subset * magics[square]) >>> shifts[square]);
+                if (table[index] != 0 && table[index] != attacks) {
+                    throw new IllegalStateException("Magic number collision on square " + square);
+                }
+                table[index] = attacks;
+                subset = (subset - masks[square]) & masks[square];
+            } while (subset != 0);
+        }
+        return table;
+    }
+
+    /**
+     * Walks each direction from a square until the edge of the board or a blocking piece
+     *
+     * @param square     The square index (0-63) of the slider
+     * @param occupied   A bitboard of the blocking pieces
+     * @param directions The square index steps the slider moves in
+     * @param maskOnly   If true the last square before the edge is left out, which gives the relevant blocker mask
+     * @return a bitboard of the attacked squares
+     */
+    private static long SlidingAttacks(int square, long occupied, int[] directions, boolean maskOnly) {
+        long attacks = 0;
+        for (int direction : directions) {
+            int current = square;
+            while (true) {
+                int next = current + direction;
+                //Stop if the step leaves the board or wraps round to the other side
+                if (next < 0 || next > 63 || Math.abs((next & 7) - (current & 7)) > 1) {
+                    break;
+                }
+                if (maskOnly) {
+                    int after = next + direction;
+                    if (after < 0 || after > 63 || Math.abs((after & 7) - (next & 7)) > 1) {
+                        break;
+                    }
+                }
+                attacks |= 1L << next;
+                if ((occupied & (1L << next)) != 0) {
+                    break;
+                }
+                current = next;
+            }
+        }
+        return attacks;
+    }
+}
@@ -0,0 +1,53 @@
+package Game.Board;
+
+import Game.Colour;
+import Game.Piece.PieceType;
+
+/**
+ * Counts mobility for the evaluation straight from the attack bitboards. A piece's mobility is the number of squares
+ * it attacks which are not held by its own pieces and not attacked by an enemy pawn. Only knights, bishops, rooks
+ * and queens are counted, since pawn and king moves say little about how active a position is.
+ * Nothing is generated and legality is not checked, so this is far cheaper than counting moves.
+ */
+public final class Mobility {
+
+    private Mobility() {
+    }
+
+    /**
+     * @param board  The board to count on
+     * @param colour The colour to count the mobility of
+     * @return the number of safe squares attacked by that colours knights, bishops, rooks and queens
+     */
+    public static int Count(Board board, Colour colour) {
+        Colour opponent = Colour.GetOtherColour(colour);
+        long occupied = board.getOccupied();
+        long area = ~board.getColourOccupancy(colour) & ~Bitboards.PawnAttacks(board.getPieceBitboard(opponent, PieceType.PAWN), opponent);
+        int mobility = 0;
+
+        long knights = board.getPieceBitboard(colour, PieceType.KNIGHT);
+        while (knights != 0) {
+            mobility += Long.bitCount(Bitboards.KNIGHT_ATTACKS[Long.numberOfTrailingZeros(knights)] & area);
+            knights &= knights - 1;
+        }
+
+        long bishops = board.getPieceBitboard(colour, PieceType.BISHOP);
+        while (bishops != 0) {
+            mobility += Long.bitCount(MagicBitboards.getBishopAttacks(Long.numberOfTrailingZeros(bishops), occupied) & area);
+            bishops &= bishops - 1;
+        }
+
+        long rooks = board.getPieceBitboard(colour, PieceType.ROOK);
+        while (rooks != 0) {
+            mobility += Long.bitCount(MagicBitboards.getRookAttacks(Long.numberOfTrailingZeros(rooks), occupied) & area);
+            rooks &= rooks - 1;
+        }
+
+        long queens = board.getPieceBitboard(colour, PieceType.QUEEN);
+        while (queens != 0) {
+            mobility += Long.bitCount(MagicBitboards.getQueenAttacks(Long.numberOfTrailingZeros(queens), occupied) & area);
+            queens &= queens - 1;
+        }
+        return mobility;
+    }
+}
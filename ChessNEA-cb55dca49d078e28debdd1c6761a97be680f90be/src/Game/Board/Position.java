@@ -0,0 +1,231 @@
+package Game.Board;
+
+import Game.CastlingAvailability;
+import Game.Colour;
+import Game.Move.MoveEncoding;
+import Game.Piece.PieceType;
+import Game.Piece.Pieces.King;
+
+import java.util.Arrays;
+
+/**
+ * A compact, immutable snapshot of a position: the twelve piece bitboards, the Zobrist key and a few bytes of state.
+ * Unlike a Board it holds no Piece objects, so it can be passed freely between threads.
+ * <p>
+ * MakeMove is copy-make: it returns a new position with the move made and leaves this one unchanged, so
+ * a position can be forked without any undo information. A Board to generate and check moves on is made with
+ * new Board(position), which creates its own pieces.
+ */
+public final class Position {
+
+    private static final Colour[] COLOURS = Colour.values();
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+
+    //Castling rights bits
+    private static final int WHITE_KING_SIDE = 1;
+    private static final int WHITE_QUEEN_SIDE = 2;
+    private static final int BLACK_KING_SIDE = 4;
+    private static final int BLACK_QUEEN_SIDE = 8;
+
+    /**
+     * The castling rights kept when a piece moves from or to each square. Moving the king or a rook, or capturing
+     * a rook on its starting square, removes the rights that depend on it
+     */
+    private static final int[] CASTLING_MASKS = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASKS, 15);
+        CASTLING_MASKS[Bitboards.SquareIndex(5, 1)] = 15 & ~(WHITE_KING_SIDE | WHITE_QUEEN_SIDE);
+        CASTLING_MASKS[Bitboards.SquareIndex(8, 1)] = 15 & ~WHITE_KING_SIDE;
+        CASTLING_MASKS[Bitboards.SquareIndex(1, 1)] = 15 & ~WHITE_QUEEN_SIDE;
+        CASTLING_MASKS[Bitboards.SquareIndex(5, 8)] = 15 & ~(BLACK_KING_SIDE | BLACK_QUEEN_SIDE);
+        CASTLING_MASKS[Bitboards.SquareIndex(8, 8)] = 15 & ~BLACK_KING_SIDE;
+        CASTLING_MASKS[Bitboards.SquareIndex(1, 8)] = 15 & ~BLACK_QUEEN_SIDE;
+    }
+
+    private final long[] PieceBitboards;
+    private final long ZobristKey;
+    private final byte SideToMove;
+    private final byte Castling;
+    private final byte EnPassantSquare;
+    private final int HalfmoveClock;
+    private final int FullmoveNumber;
+
+    private Position(long[] pieceBitboards, long zobristKey, int sideToMove, int castling, int enPassantSquare, int halfmoveClock, int fullmoveNumber) {
+        this.PieceBitboards = pieceBitboards;
+        this.ZobristKey = zobristKey;
+        this.SideToMove = (byte) sideToMove;
+        this.Castling = (byte) castling;
+        this.EnPassantSquare = (byte) enPassantSquare;
+        this.HalfmoveClock = halfmoveClock;
+        this.FullmoveNumber = fullmoveNumber;
+    }
+
+    /**
+     * Takes a snapshot of a board
+     *
+     * @param board The board to copy
+     * @return the position on the board
+     */
+    public static Position Of(Board board) {
+        long[] pieceBitboards = new long[12];
+        for (Colour colour : COLOURS) {
+            for (PieceType type : PIECE_TYPES) {
+                pieceBitboards[Bitboards.PieceIndex(colour, type)] = board.getPieceBitboard(colour, type);
+            }
+        }
+        int castling = CastlingBits(((King) board.getKings()[0]).getCastlingAvailability(), WHITE_KING_SIDE, WHITE_QUEEN_SIDE)
+                | CastlingBits(((King) board.getKings()[1]).getCastlingAvailability(), BLACK_KING_SIDE, BLACK_QUEEN_SIDE);
+        return new Position(pieceBitboards, board.getZobristKey(), board.getSideToMove().ordinal(), castling,
+                board.getEnPassantSquare(), board.getHalfmoveClock(), board.getFullmoveNumber());
+    }
+
+    /**
+     * Makes a move on a copy of this position. The move must be legal in this position
+     *
+     * @param move An encoded move
+     * @return the position after the move
+     */
+    public Position MakeMove(int move) {
+        int origin = MoveEncoding.getOrigin(move);
+        int destination = MoveEncoding.getDestination(move);
+        int flags = MoveEncoding.getFlags(move);
+        int side = SideToMove;
+        Colour colour = COLOURS[side];
+        long[] pieceBitboards = PieceBitboards.clone();
+        long key = ZobristKey;
+
+        int movedPiece = PieceIndexAt(pieceBitboards, origin, side);
+        int halfmoveClock = movedPiece % 6 == PieceType.PAWN.ordinal() ? 0 : HalfmoveClock + 1;
+
+        //Take off the captured piece
+        if (MoveEncoding.isCapture(move)) {
+            int capturedSquare = flags == MoveEncoding.EN_PASSANT ? destination + (side == 0 ? -8 : 8) : destination;
+            int capturedPiece = PieceIndexAt(pieceBitboards, capturedSquare, side ^ 1);
+            pieceBitboards[capturedPiece] &= ~Bitboards.SquareMask(capturedSquare);
+            key ^= Zobrist.PieceKey(capturedPiece, capturedSquare);
+            halfmoveClock = 0;
+        }
+
+        //Move the piece, replacing a promoted pawn with its new piece
+        int placedPiece = MoveEncoding.isPromotion(move)
+                ? Bitboards.PieceIndex(colour, MoveEncoding.getPromotionType(move)) : movedPiece;
+        pieceBitboards[movedPiece] &= ~Bitboards.SquareMask(origin);
+        pieceBitboards[placedPiece] |= Bitboards.SquareMask(destination);
+        key ^= Zobrist.PieceKey(movedPiece, origin) ^ Zobrist.PieceKey(placedPiece, destination);
+
+        if (flags == MoveEncoding.KING_CASTLE || flags == MoveEncoding.QUEEN_CASTLE) {
+            int rook = Bitboards.PieceIndex(colour, PieceType.ROOK);
+            int rookOrigin = flags == MoveEncoding.KING_CASTLE ? origin + 3 : origin - 4;
+            int rookDestination = flags == MoveEncoding.KING_CASTLE ? origin + 1 : origin - 1;
+            pieceBitboards[rook] ^= Bitboards.SquareMask(rookOrigin) | Bitboards.SquareMask(rookDestination);
+            key ^= Zobrist.PieceKey(rook, rookOrigin) ^ Zobrist.PieceKey(rook, rookDestination);
+        }
+
+        int castling = Castling & CASTLING_MASKS[origin] & CASTLING_MASKS[destination];
+        if (castling != Castling) {
+            key ^= CastlingKeys(Castling) ^ CastlingKeys(castling);
+        }
+
+        int enPassantSquare = flags == MoveEncoding.DOUBLE_PAWN_PUSH ? (origin + destination) / 2 : -1;
+        if (EnPassantSquare >= 0) {
+            key ^= Zobrist.EnPassantKey(Bitboards.FileOf(EnPassantSquare));
+        }
+        if (enPassantSquare >= 0) {
+            key ^= Zobrist.EnPassantKey(Bitboards.FileOf(enPassantSquare));
+        }
+
+        key ^= Zobrist.SideKey();
+        return new Position(pieceBitboards, key, side ^ 1, castling, enPassantSquare, halfmoveClock,
+                side == 1 ? FullmoveNumber + 1 : FullmoveNumber);
+    }
+
+    /**
+     * @return the index (as Bitboards.PieceIndex) of the piece of one side on a square
+     */
+    private static int PieceIndexAt(long[] pieceBitboards, int square, int side) {
+        long mask = Bitboards.SquareMask(square);
+        for (int index = side * 6; index < side * 6 + 6; index++) {
+            if ((pieceBitboards[index] & mask) != 0) {
+                return index;
+            }
+        }
+        throw new IllegalArgumentException("No piece on square " + square);
+    }
+
+    private static int CastlingBits(CastlingAvailability castlingAvailability, int kingSide, int queenSide) {
+        switch (castlingAvailability) {
+            case BOTH:
+                return kingSide | queenSide;
+            case KING_SIDE:
+                return kingSide;
+            case QUEEN_SIDE:
+                return queenSide;
+            default:
+                return 0;
+        }
+    }
+
+    private static CastlingAvailability CastlingAvailabilityOf(int castling, int kingSide, int queenSide) {
+        boolean kingSideAvailable = (castling & kingSide) != 0;
+        boolean queenSideAvailable = (castling & queenSide) != 0;
+        if (kingSideAvailable && queenSideAvailable) {
+            return CastlingAvailability.BOTH;
+        } else if (kingSideAvailable) {
+            return CastlingAvailability.KING_SIDE;
+        } else if (queenSideAvailable) {
+            return CastlingAvailability.QUEEN_SIDE;
+        }
+        return CastlingAvailability.NEITHER;
+    }
+
+    /**
+     * @return the castling part of the Zobrist key for some castling rights
+     */
+    private static long CastlingKeys(int castling) {
+        return Zobrist.CastlingKey(Colour.WHITE, CastlingAvailabilityOf(castling, WHITE_KING_SIDE, WHITE_QUEEN_SIDE))
+                ^ Zobrist.CastlingKey(Colour.BLACK, CastlingAvailabilityOf(castling, BLACK_KING_SIDE, BLACK_QUEEN_SIDE));
+    }
+
+    /**
+     * @param colour The colour of the pieces
+     * @param type   The type of the pieces
+     * @return a bitboard of the squares holding those pieces
+     */
+    public long getPieceBitboard(Colour colour, PieceType type) {
+        return PieceBitboards[Bitboards.PieceIndex(colour, type)];
+    }
+
+    /**
+     * @param colour The colour of the king
+     * @return that kings castling availability
+     */
+    public CastlingAvailability getCastlingAvailability(Colour colour) {
+        return colour == Colour.WHITE
+                ? CastlingAvailabilityOf(Castling, WHITE_KING_SIDE, WHITE_QUEEN_SIDE)
+                : CastlingAvailabilityOf(Castling, BLACK_KING_SIDE, BLACK_QUEEN_SIDE);
+    }
+
+    /**
+     * @return the square an enPassant capture would move to, or -1 if there is none
+     */
+    public int getEnPassantSquare() {
+        return EnPassantSquare;
+    }
+
+    public Colour getSideToMove() {
+        return COLOURS[SideToMove];
+    }
+
+    public long getZobristKey() {
+        return ZobristKey;
+    }
+
+    public int getHalfmoveClock() {
+        return HalfmoveClock;
+    }
+
+    public int getFullmoveNumber() {
+        return FullmoveNumber;
+    }
+}
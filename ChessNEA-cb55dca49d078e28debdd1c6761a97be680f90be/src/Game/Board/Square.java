@@ -15,7 +15,7 @@ public abstract class Square {
      * @param YCoordinate The Y-Coordinate of the piece (the rank)
      */
     public Square(final int XCoordinate, final int YCoordinate) {
-        coordinate = new Coordinate(XCoordinate, YCoordinate);
+        coordinate = Coordinate.Of(XCoordinate, YCoordinate);
     }
 
     public void setCoordinate(Coordinate coordinate) {
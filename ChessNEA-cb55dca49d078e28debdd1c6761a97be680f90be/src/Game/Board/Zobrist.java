@@ -0,0 +1,86 @@
+package Game.Board;
+
+import Game.CastlingAvailability;
+import Game.Colour;
+import Game.Piece.Piece;
+
+import java.util.Random;
+
+/**
+ * Random keys for Zobrist hashing. A position's key is the XOR of the keys for every piece on its square,
+ * each kings castling availability, the file of the enPassant pawn and the side to move (when black is to move).
+ * Since XOR is its own inverse the key can be updated as pieces are placed and removed rather than recalculated.
+ * The keys come from a fixed seed so they are the same every time the program runs.
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+
+    private static final long[][] PIECE_KEYS = new long[12][64];
+    private static final long[][] CASTLING_KEYS = new long[2][CastlingAvailability.values().length];
+    private static final long[] EN_PASSANT_KEYS = new long[8];
+    private static final long SIDE_KEY;
+
+    static {
+        Random random = new Random(SEED);
+        for (long[] pieceKeys : PIECE_KEYS) {
+            for (int square = 0; square < 64; square++) {
+                pieceKeys[square] = random.nextLong();
+            }
+        }
+        for (long[] castlingKeys : CASTLING_KEYS) {
+            for (int i = 0; i < castlingKeys.length; i++) {
+                castlingKeys[i] = random.nextLong();
+            }
+        }
+        for (int file = 0; file < 8; file++) {
+            EN_PASSANT_KEYS[file] = random.nextLong();
+        }
+        SIDE_KEY = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @param piece  A piece
+     * @param square The square index (0-63) the piece is on
+     * @return the key for that piece on that square
+     */
+    public static long PieceKey(Piece piece, int square) {
+        return PIECE_KEYS[Bitboards.PieceIndex(piece.getColour(), piece.getType())][square];
+    }
+
+    /**
+     * @param pieceIndex The index of the piece's colour and type, from Bitboards.PieceIndex
+     * @param square     The square index (0-63) the piece is on
+     * @return the key for that piece on that square
+     */
+    public static long PieceKey(int pieceIndex, int square) {
+        return PIECE_KEYS[pieceIndex][square];
+    }
+
+    /**
+     * @param colour               The colour of the king
+     * @param castlingAvailability The kings castling availability
+     * @return the key for that colours castling availability
+     */
+    public static long CastlingKey(Colour colour, CastlingAvailability castlingAvailability) {
+        return CASTLING_KEYS[colour.ordinal()][castlingAvailability.ordinal()];
+    }
+
+    /**
+     * @param file The file of the enPassant pawn (1-8)
+     * @return the key for an enPassant pawn on that file
+     */
+    public static long EnPassantKey(int file) {
+        return EN_PASSANT_KEYS[file - 1];
+    }
+
+    /**
+     * @return the key which is included when black is to move
+     */
+    public static long SideKey() {
+        return SIDE_KEY;
+    }
+}
@@ -4,8 +4,21 @@ import Game.Board.Square;
 
 public class Coordinate {
 
+    /*
+    Coordinates cannot be changed once created, so one coordinate for each square is shared by the whole program.
+    Code which moves pieces should use Of rather than creating new coordinates
+     */
+    private static final Coordinate[] COORDINATES = new Coordinate[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            COORDINATES[square] = new Coordinate((square & 7) + 1, (square >>> 3) + 1);
+        }
+    }
+
     private final int File;  //X Coordinate
     private final int Rank;  //Y Coordinate
+    private final int SquareIndex;  //Square index (0-63), (Rank - 1) * 8 + (File - 1)
 
     /**
      * Constructor for a coordinate object
@@ -16,6 +29,24 @@ public class Coordinate {
     public Coordinate(int File, int Rank) {
         this.File = File;
         this.Rank = Rank;
+        this.SquareIndex = (Rank - 1) * 8 + (File - 1);
+    }
+
+    /**
+     * @param square A square index (0-63)
+     * @return the shared coordinate of that square
+     */
+    public static Coordinate Of(int square) {
+        return COORDINATES[square];
+    }
+
+    /**
+     * @param File The file of the square (1-8)
+     * @param Rank The rank of the square (1-8)
+     * @return the shared coordinate of that square
+     */
+    public static Coordinate Of(int File, int Rank) {
+        return COORDINATES[(Rank - 1) * 8 + (File - 1)];
     }
 
     /**
@@ -40,24 +71,11 @@ public class Coordinate {
     /**
      * Locates the square at any given coordinate
      *
-     * @param Board An instance of the current board (which contains an array of squares)
+     * @param Board An instance of the current board (which contains an array of squares, Board[Rank - 1][File - 1])
      * @return the square at given coordinate
      */
     public Square GetSquareAt(Square[][] Board) {
-        for (Square[] row : Board) {
-            for (Square square : row) {
-                if (square.SquareOccupied()) {
-                    if (!square.ReturnPiece().getPieceCoordinate().CompareCoordinates(square)) {
-                        square.setCoordinate(square.ReturnPiece().getPieceCoordinate());
-                    }
-                }
-
-                if (CompareCoordinates(square)) {
-                    return square;
-                }
-            }
-        }
-        return null;
+        return Board[Rank - 1][File - 1];
     }
 
     /**
@@ -91,4 +109,11 @@ public class Coordinate {
     public int getRank() {
         return Rank;
     }
+
+    /**
+     * @return the square index (0-63) used by the bitboards
+     */
+    public int getSquareIndex() {
+        return SquareIndex;
+    }
 }
@@ -1,16 +1,33 @@
 package Game;
 
+import Game.Board.Bitboards;
 import Game.Board.Board;
+import Game.Board.MagicBitboards;
 import Game.Board.Square;
 import Game.Move.Move;
+import Game.Move.MoveEncoding;
 import Game.Piece.Piece;
 import Game.Piece.PieceType;
 import Game.Piece.Pieces.*;
 import User.User;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class Game {
+
+    /**
+     * Piece values in centipawns for static exchange evaluation, indexed by PieceType ordinal
+     * (King, Queen, Rook, Bishop, Knight, Pawn). The king is worth more than everything else put together
+     */
+    private static final int[] EXCHANGE_VALUES = {20000, 900, 500, 330, 320, 100};
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+
+    /**
+     * The size of the buffer StaticExchangeEvaluation needs, one entry for each piece which can capture on a square
+     */
+    public static final int EXCHANGE_BUFFER_SIZE = 32;
+
     private final Player whitePlayer, blackPlayer;
     private final Board board;
     private Player PlayerToMove;
@@ -54,6 +71,17 @@ public class Game {
         blackPlayer = null;
     }
 
+    /**
+     * Creates a game without players around an existing board, used for searching a copy of a position
+     *
+     * @param board The board of the game
+     */
+    public Game(final Board board) {
+        this.board = board;
+        whitePlayer = null;
+        blackPlayer = null;
+    }
+
     //TODO IMPORTANT.... and comment
     public void mainGame() {
 
@@ -81,14 +109,15 @@ public class Game {
         int DestinationX = move.getEndPosition().ReturnCoordinate().getFile();
         int DestinationY = move.getEndPosition().ReturnCoordinate().getRank();
 
-
+        int Origin = Bitboards.SquareIndex(OriginX, OriginY);
+        int Destination = Bitboards.SquareIndex(DestinationX, DestinationY);
 
         if (move.getMovedPiece() != null){
-            board.getBoardArray()[OriginY - 1][OriginX - 1] = new Square.EmptySquare(OriginX, OriginY);
+            board.PushHistory(move.getMovedPiece() instanceof Pawn || move.wasCapture());
+            board.RemovePiece(Origin);
 
             if (move instanceof Move.PawnPromotion) {
-                board.getBoardArray()[DestinationY - 1][DestinationX - 1] =
-                        new Square.OccupiedSquare(DestinationX, DestinationY, ((Move.PawnPromotion) move).getPromotionPiece());
+                board.PlacePiece(((Move.PawnPromotion) move).getPromotionPiece(), Destination);
                 if (((Move.PawnPromotion) move).getPromotionPiece().getColour() == Colour.WHITE) {
                     board.getWhitePieces().add(((Move.PawnPromotion) move).getPromotionPiece());
                     board.getWhitePieces().remove(move.getMovedPiece());
@@ -99,8 +128,8 @@ public class Game {
                 }
 
             } else if (move instanceof Move.PawnPromotionCapture) {
-                board.getBoardArray()[DestinationY - 1][DestinationX - 1] =
-                        new Square.OccupiedSquare(DestinationX, DestinationY, ((Move.PawnPromotionCapture) move).getPromotionPiece());
+                board.RemovePiece(Destination);
+                board.PlacePiece(((Move.PawnPromotionCapture) move).getPromotionPiece(), Destination);
                 if (((Move.PawnPromotionCapture) move).getPromotionPiece().getColour() == Colour.WHITE) {
                     board.getWhitePieces().add(((Move.PawnPromotionCapture) move).getPromotionPiece());
                     board.getWhitePieces().remove(move.getMovedPiece());
@@ -111,42 +140,35 @@ public class Game {
                 }
 
             } else if (move instanceof Move.EnPassantMove) {
-                board.getBoardArray()[DestinationY - 1][DestinationX - 1] =
-                        new Square.OccupiedSquare(DestinationX, DestinationY, move.getMovedPiece());
+                board.PlacePiece(move.getMovedPiece(), Destination);
                 move.getMovedPiece().setPieceCoordinate(move.getEndPosition().ReturnCoordinate());
 
-                //Return EnPassant pawn to square
-                board.getBoardArray()[((Move.EnPassantMove) move).getCapturedPieceLocation().ReturnCoordinate().getRank() - 1]
-                        [((Move.EnPassantMove) move).getCapturedPieceLocation().ReturnCoordinate().getFile() - 1] =
-                        new Square.EmptySquare(((Move.EnPassantMove) move).getCapturedPieceLocation().ReturnCoordinate().getRank(),
-                                ((Move.EnPassantMove) move).getCapturedPieceLocation().ReturnCoordinate().getFile());
+                //Remove EnPassant pawn from its square
+                board.RemovePiece(Bitboards.SquareIndex(((Move.EnPassantMove) move).getCapturedPieceLocation().ReturnCoordinate()));
 
             } else if (move instanceof Move.CastlingMove) {
                 //Move King
-                board.getBoardArray()[DestinationY - 1][DestinationX - 1] =
-                        new Square.OccupiedSquare(DestinationX, DestinationY, move.getMovedPiece());
+                board.PlacePiece(move.getMovedPiece(), Destination);
                 move.getMovedPiece().setPieceCoordinate(move.getEndPosition().ReturnCoordinate());
 
                 //Remove Rook from its origin
-                int rank = move.getMovedPiece().getColour() == Colour.WHITE ? 0 : 7;
+                int rank = move.getMovedPiece().getColour() == Colour.WHITE ? 1 : 8;
                 if (((Move.CastlingMove) move).getCastleType() == CastlingAvailability.KING_SIDE) {
-                    board.getBoardArray()[rank][7] = new Square.EmptySquare(8, rank + 1);
+                    board.RemovePiece(Bitboards.SquareIndex(8, rank));
                 } else if (((Move.CastlingMove) move).getCastleType() == CastlingAvailability.QUEEN_SIDE) {
-                    board.getBoardArray()[rank][0] = new Square.EmptySquare(1, rank + 1);
+                    board.RemovePiece(Bitboards.SquareIndex(1, rank));
                 }
 
                 //Move Rook to its destination
-                board.getBoardArray()[((Move.CastlingMove) move).getRookDestination().getRank() - 1][((Move.CastlingMove) move).getRookDestination().getFile() - 1] =
-                        new Square.OccupiedSquare(((Move.CastlingMove) move).getRookDestination().getFile(), ((Move.CastlingMove) move).getRookDestination().getRank(), ((Move.CastlingMove) move).getCastledRook());
+                board.PlacePiece(((Move.CastlingMove) move).getCastledRook(), Bitboards.SquareIndex(((Move.CastlingMove) move).getRookDestination()));
                 ((Move.CastlingMove) move).getCastledRook().setPieceCoordinate(((Move.CastlingMove) move).getRookDestination());
 
             } else {
-                board.getBoardArray()[DestinationY - 1][DestinationX - 1] =
-                        new Square.OccupiedSquare(DestinationX, DestinationY, move.getMovedPiece());
+                board.RemovePiece(Destination);
+                board.PlacePiece(move.getMovedPiece(), Destination);
                 move.getMovedPiece().setPieceCoordinate(move.getEndPosition().ReturnCoordinate());
             }
 
-
             if (move.getMovedPiece() instanceof Pawn) {
                 if (move.getMovedPiece().getColour() == Colour.WHITE && (OriginY - DestinationY == -2) && (OriginX - DestinationX == 0)) {
                     board.setEnPassantPawn((Pawn) move.getMovedPiece());
@@ -159,22 +181,22 @@ public class Game {
                 King king = (King) (move.getMovedPiece().getColour() == Colour.WHITE ? board.getKings()[0] : board.getKings()[1]);
                 if (king.getCastlingAvailability() == CastlingAvailability.BOTH) {
                     if (((Rook) move.getMovedPiece()).getCastlingAvailability() == CastlingAvailability.KING_SIDE) {
-                        king.setCastlingAvailability(CastlingAvailability.QUEEN_SIDE);
+                        board.setCastlingAvailability(king.getColour(), CastlingAvailability.QUEEN_SIDE);
                     } else if (((Rook) move.getMovedPiece()).getCastlingAvailability() == CastlingAvailability.QUEEN_SIDE) {
-                        king.setCastlingAvailability(CastlingAvailability.KING_SIDE);
+                        board.setCastlingAvailability(king.getColour(), CastlingAvailability.KING_SIDE);
                     }
                 } else if (king.getCastlingAvailability() == CastlingAvailability.QUEEN_SIDE) {
                     if (((Rook) move.getMovedPiece()).getCastlingAvailability() == CastlingAvailability.QUEEN_SIDE) {
-                        king.setCastlingAvailability(CastlingAvailability.NEITHER);
+                        board.setCastlingAvailability(king.getColour(), CastlingAvailability.NEITHER);
                     }
                 } else if (king.getCastlingAvailability() == CastlingAvailability.KING_SIDE) {
                     if (((Rook) move.getMovedPiece()).getCastlingAvailability() == CastlingAvailability.KING_SIDE) {
-                        king.setCastlingAvailability(CastlingAvailability.NEITHER);
+                        board.setCastlingAvailability(king.getColour(), CastlingAvailability.NEITHER);
                     }
                 }
             } else if (move.getMovedPiece() instanceof King) {
                 if (((King) move.getMovedPiece()).getCastlingAvailability() != CastlingAvailability.NEITHER) {
-                    ((King) move.getMovedPiece()).setCastlingAvailability(CastlingAvailability.NEITHER);
+                    board.setCastlingAvailability(move.getMovedPiece().getColour(), CastlingAvailability.NEITHER);
                 }
             }
             //Unset en-passant pawn if a double pawn move didnt happen
@@ -189,6 +211,7 @@ public class Game {
                     board.getBlackPieces().remove(move.getCapturedPiece());
                 }
             }
+            board.SwitchSideToMove();
         } else {
             //System.out.println(OriginX + " " + OriginY);
             //board.PrintBoard();
@@ -202,19 +225,18 @@ public class Game {
         int DestinationX = move.getEndPosition().ReturnCoordinate().getFile();
         int DestinationY = move.getEndPosition().ReturnCoordinate().getRank();
 
+        int Origin = Bitboards.SquareIndex(OriginX, OriginY);
+        int Destination = Bitboards.SquareIndex(DestinationX, DestinationY);
+
         if (move.getMovedPiece() != null){
             //Moves the piece back to where it started
-            board.getBoardArray()[OriginY - 1][OriginX - 1] =
-                    new Square.OccupiedSquare(OriginX, OriginY, move.getMovedPiece());
+            board.RemovePiece(Destination);
+            board.PlacePiece(move.getMovedPiece(), Origin);
             move.getMovedPiece().setPieceCoordinate(move.getStartPosition().ReturnCoordinate());
 
-            //Puts any captured piece back to where it started and removes the other piece from that square
+            //Puts any captured piece back to where it started
             if (move instanceof Move.EnPassantMove) {
-                board.getBoardArray()[DestinationY - 1][DestinationX - 1] = new Square.EmptySquare(DestinationX, DestinationY);
-                board.getBoardArray()[((Move.EnPassantMove) move).getCapturedPieceLocation().ReturnCoordinate().getRank() - 1]
-                        [((Move.EnPassantMove) move).getCapturedPieceLocation().ReturnCoordinate().getFile() - 1] =
-                        new Square.OccupiedSquare(((Move.EnPassantMove) move).getCapturedPieceLocation().ReturnCoordinate().getRank(),
-                                ((Move.EnPassantMove) move).getCapturedPieceLocation().ReturnCoordinate().getFile(), move.getCapturedPiece());
+                board.PlacePiece(move.getCapturedPiece(), Bitboards.SquareIndex(((Move.EnPassantMove) move).getCapturedPieceLocation().ReturnCoordinate()));
 
                 if (move.getCapturedPiece().getColour() == Colour.WHITE) {
                     board.getWhitePieces().add(move.getCapturedPiece());
@@ -223,14 +245,13 @@ public class Game {
                 }
                 board.setEnPassantPawn((Pawn) move.getCapturedPiece());
             } else if (move instanceof Move.CapturingMove) {
-                board.getBoardArray()[DestinationY - 1][DestinationX - 1] = new Square.OccupiedSquare(DestinationX, DestinationY, move.getCapturedPiece());
+                board.PlacePiece(move.getCapturedPiece(), Destination);
                 if (move.getCapturedPiece().getColour() == Colour.WHITE) {
                     board.getWhitePieces().add(move.getCapturedPiece());
                 } else if (move.getCapturedPiece().getColour() == Colour.BLACK) {
                     board.getBlackPieces().add(move.getCapturedPiece());
                 }
             } else if (move instanceof Move.PawnPromotion) {
-                board.getBoardArray()[DestinationY - 1][DestinationX - 1] = new Square.EmptySquare(DestinationX, DestinationY);
                 if (((Move.PawnPromotion) move).getPromotionPiece().getColour() == Colour.WHITE) {
                     board.getWhitePieces().remove(((Move.PawnPromotion) move).getPromotionPiece());
                     board.getWhitePieces().add(move.getMovedPiece());
@@ -241,138 +262,237 @@ public class Game {
                 }
 
             } else if (move instanceof Move.PawnPromotionCapture) {
-                board.getBoardArray()[DestinationY - 1][DestinationX - 1] = new Square.OccupiedSquare(DestinationX, DestinationY, move.getCapturedPiece());
+                board.PlacePiece(move.getCapturedPiece(), Destination);
                 if (((Move.PawnPromotionCapture) move).getPromotionPiece().getColour() == Colour.WHITE) {
                     board.getWhitePieces().remove(((Move.PawnPromotionCapture) move).getPromotionPiece());
                     board.getWhitePieces().add(move.getMovedPiece());
-                    board.getWhitePieces().add(move.getCapturedPiece());
+                    board.getBlackPieces().add(move.getCapturedPiece());
 
                 } else if (((Move.PawnPromotionCapture) move).getPromotionPiece().getColour() == Colour.BLACK) {
                     board.getBlackPieces().remove(((Move.PawnPromotionCapture) move).getPromotionPiece());
                     board.getBlackPieces().add(move.getMovedPiece());
-                    board.getBlackPieces().add(move.getCapturedPiece());
+                    board.getWhitePieces().add(move.getCapturedPiece());
                 }
 
             } else if (move instanceof Move.CastlingMove) {
-                board.getBoardArray()[DestinationY - 1][DestinationX - 1] = new Square.EmptySquare(DestinationX, DestinationY);
-                board.getBoardArray()[((Move.CastlingMove) move).getRookDestination().getRank() - 1][((Move.CastlingMove) move).getRookDestination().getFile() - 1]
-                        = new Square.EmptySquare(((Move.CastlingMove) move).getRookDestination().getFile(), ((Move.CastlingMove) move).getRookDestination().getRank());
+                board.RemovePiece(Bitboards.SquareIndex(((Move.CastlingMove) move).getRookDestination()));
 
-                int rank = move.getMovedPiece().getColour() == Colour.WHITE ? 0 : 7;
+                int rank = move.getMovedPiece().getColour() == Colour.WHITE ? 1 : 8;
                 if (((Move.CastlingMove) move).getCastleType() == CastlingAvailability.KING_SIDE) {
-                    board.getBoardArray()[rank][7] = new Square.OccupiedSquare(8, rank + 1, ((Move.CastlingMove) move).getCastledRook());
-                    ((Move.CastlingMove) move).getCastledRook().setPieceCoordinate(new Coordinate(8, rank + 1));
+                    board.PlacePiece(((Move.CastlingMove) move).getCastledRook(), Bitboards.SquareIndex(8, rank));
+                    ((Move.CastlingMove) move).getCastledRook().setPieceCoordinate(Coordinate.Of(8, rank));
                 } else if (((Move.CastlingMove) move).getCastleType() == CastlingAvailability.QUEEN_SIDE) {
-                    board.getBoardArray()[rank][0] = new Square.OccupiedSquare(1, rank + 1, ((Move.CastlingMove) move).getCastledRook());
-                    ((Move.CastlingMove) move).getCastledRook().setPieceCoordinate(new Coordinate(1, rank + 1));
+                    board.PlacePiece(((Move.CastlingMove) move).getCastledRook(), Bitboards.SquareIndex(1, rank));
+                    ((Move.CastlingMove) move).getCastledRook().setPieceCoordinate(Coordinate.Of(1, rank));
                 }
-
-            } else {
-                board.getBoardArray()[DestinationY - 1][DestinationX - 1] = new Square.EmptySquare(DestinationX, DestinationY);
             }
 
             //Reset Castling Status
-            King king = (King) (move.getMovedPiece().getColour() == Colour.WHITE ? board.getKings()[0] : board.getKings()[1]);
-            king.setCastlingAvailability(castlingAvailability);
+            board.setCastlingAvailability(move.getMovedPiece().getColour(), castlingAvailability);
 
             //Reset EnPassant Pawn
             board.setEnPassantPawn(enPassantPawn);
+            board.PopHistory();
+            board.SwitchSideToMove();
         }
     }
 
     /**
-     * @param ThreatenedColour
-     * @param ThreatenedSquare
-     * @return
+     * Makes an encoded move. The state needed to reverse it is pushed onto the boards undo stack,
+     * so it must be reversed with reverseMove(int, Board) in the opposite order to which moves were made.
+     *
+     * @param move  An encoded pseudo-legal move
+     * @param board The board the move is made on
      */
-    public static boolean isThreatenedSquare(Colour ThreatenedColour, Square ThreatenedSquare, Board board) {
-
-        final int file = ThreatenedSquare.ReturnCoordinate().getFile() - 1;
-        final int rank = ThreatenedSquare.ReturnCoordinate().getRank() - 1;
+    public static void MakeMove(int move, Board board) {
+        int origin = MoveEncoding.getOrigin(move);
+        int destination = MoveEncoding.getDestination(move);
+        int flags = MoveEncoding.getFlags(move);
+
+        Piece movedPiece = board.getPieceAt(origin);
+        Colour colour = movedPiece.getColour();
+        Piece capturedPiece;
+        if (flags == MoveEncoding.EN_PASSANT) {
+            capturedPiece = board.RemovePiece(destination + (colour == Colour.WHITE ? -8 : 8));
+        } else {
+            capturedPiece = board.RemovePiece(destination);
+        }
+        board.PushUndoState(capturedPiece, movedPiece);
+        board.PushHistory(movedPiece instanceof Pawn || capturedPiece != null);
+        board.RemovePiece(origin);
 
-        //Knight checks
-        int[] knightHorizontalDirections = {-1, -2, -2, -1, 1, 2, 2, 1};
-        int[] knightVerticalDirections = {-2, -1, 1, 2, -2, -1, 1, 2};
+        List<Piece> pieces = colour == Colour.WHITE ? board.getWhitePieces() : board.getBlackPieces();
+        if (MoveEncoding.isPromotion(move)) {
+            Piece promotionPiece = Piece.CreatePiece(MoveEncoding.getPromotionType(move),
+                    Coordinate.Of(destination), colour);
+            board.PlacePiece(promotionPiece, destination);
+            pieces.remove(movedPiece);
+            pieces.add(promotionPiece);
+        } else {
+            board.PlacePiece(movedPiece, destination);
+            movedPiece.setPieceCoordinate(Coordinate.Of(destination));
+        }
 
-        for (int DirectionIndex = 0; DirectionIndex < 8; DirectionIndex++) {
-            int currentFile = file + knightHorizontalDirections[DirectionIndex];
-            int currentRank = rank + knightVerticalDirections[DirectionIndex];
+        //Move the rook for castling
+        if (flags == MoveEncoding.KING_CASTLE || flags == MoveEncoding.QUEEN_CASTLE) {
+            int rookOrigin = flags == MoveEncoding.KING_CASTLE ? origin + 3 : origin - 4;
+            int rookDestination = flags == MoveEncoding.KING_CASTLE ? origin + 1 : origin - 1;
+            Piece rook = board.RemovePiece(rookOrigin);
+            board.PlacePiece(rook, rookDestination);
+            rook.setPieceCoordinate(Coordinate.Of(rookDestination));
+        }
 
-            if ((currentFile <= 7 && currentFile >= 0) && (currentRank <= 7 && currentRank >= 0)){
-                if (board.getBoardArray()[currentRank][currentFile].SquareOccupied())
-                {
-                    Piece threateningPiece = board.getBoardArray()[currentRank][currentFile].ReturnPiece();
-                    if(threateningPiece instanceof Knight && threateningPiece.getColour() != ThreatenedColour){
-                        return true;
-                    }
-                }
+        if (capturedPiece != null) {
+            (colour == Colour.WHITE ? board.getBlackPieces() : board.getWhitePieces()).remove(capturedPiece);
+            //A captured rook can no longer castle
+            if (capturedPiece instanceof Rook) {
+                RemoveCastlingSide(board, capturedPiece.getColour(), ((Rook) capturedPiece).getCastlingAvailability());
             }
         }
 
+        if (movedPiece instanceof King) {
+            board.setCastlingAvailability(colour, CastlingAvailability.NEITHER);
+        } else if (movedPiece instanceof Rook) {
+            RemoveCastlingSide(board, colour, ((Rook) movedPiece).getCastlingAvailability());
+        }
 
-        //Other Piece Checks
-        int[] regularHorizontalDirections = {-1, -1, -1, 0, 0, 1, 1, 1};
-        int[] regularVerticalDirections = {-1, 0, 1, -1, 1, -1, 0, 1};
+        board.setEnPassantPawn(flags == MoveEncoding.DOUBLE_PAWN_PUSH ? (Pawn) movedPiece : null);
+        board.SwitchSideToMove();
+    }
 
-        for (int DirectionIndex = 0; DirectionIndex < 8; DirectionIndex++){
-            int currentFile = file;
-            int currentRank = rank;
+    /**
+     * Reverses the last encoded move made with MakeMove(int, Board)
+     *
+     * @param move  The encoded move which was made
+     * @param board The board the move was made on
+     */
+    public static void reverseMove(int move, Board board) {
+        int origin = MoveEncoding.getOrigin(move);
+        int destination = MoveEncoding.getDestination(move);
+        int flags = MoveEncoding.getFlags(move);
+
+        Piece movedPiece = board.getLastMovedPiece();
+        Piece capturedPiece = board.getLastCapturedPiece();
+        Colour colour = movedPiece.getColour();
+
+        //Moves the piece back to where it started
+        Piece destinationPiece = board.RemovePiece(destination);
+        if (MoveEncoding.isPromotion(move)) {
+            List<Piece> pieces = colour == Colour.WHITE ? board.getWhitePieces() : board.getBlackPieces();
+            pieces.remove(destinationPiece);
+            pieces.add(movedPiece);
+        }
+        board.PlacePiece(movedPiece, origin);
+        movedPiece.setPieceCoordinate(Coordinate.Of(origin));
+
+        if (flags == MoveEncoding.KING_CASTLE || flags == MoveEncoding.QUEEN_CASTLE) {
+            int rookOrigin = flags == MoveEncoding.KING_CASTLE ? origin + 3 : origin - 4;
+            int rookDestination = flags == MoveEncoding.KING_CASTLE ? origin + 1 : origin - 1;
+            Piece rook = board.RemovePiece(rookDestination);
+            board.PlacePiece(rook, rookOrigin);
+            rook.setPieceCoordinate(Coordinate.Of(rookOrigin));
+        }
 
-            int loop = -1;
-            while (loop < 8){
-                loop++;
-                currentFile = currentFile + regularHorizontalDirections[DirectionIndex];
-                currentRank = currentRank + regularVerticalDirections[DirectionIndex];
+        //Puts any captured piece back to where it started
+        if (capturedPiece != null) {
+            int capturedSquare = flags == MoveEncoding.EN_PASSANT ? destination + (colour == Colour.WHITE ? -8 : 8) : destination;
+            board.PlacePiece(capturedPiece, capturedSquare);
+            (colour == Colour.WHITE ? board.getBlackPieces() : board.getWhitePieces()).add(capturedPiece);
+        }
 
-                if (currentFile > 7 || currentFile < 0 || currentRank > 7 || currentRank < 0){
-                    break;
-                }
-                else if (board.getBoardArray()[currentRank][currentFile].SquareOccupied()){
-                    Piece threateningPiece = board.getBoardArray()[currentRank][currentFile].ReturnPiece();
-
-                    if (threateningPiece.getColour() != ThreatenedColour)
-                    {
-                        //Queen, Bishop and Rook checks
-                        if (threateningPiece instanceof Queen){
-                            return true;
-
-                        } else if (threateningPiece instanceof Bishop){
-                            boolean[] bishopAttackingCapabilities = {true, false, true, false, false, true, false, true};
-                            if (bishopAttackingCapabilities[DirectionIndex]){
-                                return true;
-                            }
-
-                        }else if(threateningPiece instanceof Rook){
-                            boolean[] rookAttackingCapabilities = {false, true, false, true, true, false, true, false};
-                            if (rookAttackingCapabilities[DirectionIndex]){
-                                return true;
-                            }
-                        } else {
+        //Resets castling availability, the enPassant pawn and the move counters
+        board.PopUndoState();
+        board.PopHistory();
+        board.SwitchSideToMove();
+    }
 
-                            /*
-                        King and Pawn checks:
-                        If loop = 0 then the current square being checked is directly adjacent to the origin (threatened) square
-                         */
-                            if (loop == 0){
-                                if (threateningPiece instanceof King){
-                                    return true;
-                                }
-                                else if (threateningPiece instanceof Pawn) {
-                                    boolean validDirection = threateningPiece.getColour() == Colour.WHITE;
-                                    boolean[] pawnAttackingCapabilities = {validDirection, false, !validDirection, false, false,
-                                            validDirection, false, !validDirection};
-                                    if (pawnAttackingCapabilities[DirectionIndex]) {
-                                        return true;
-                                    }
-                                }
-                            }
-                        }
-                    }
-                    break;
-                }
+    /**
+     * Passes the move to the other side without moving a piece, used by the search for null-move pruning.
+     * It must be reversed with reverseNullMove(Board) like an encoded move
+     *
+     * @param board The board the null move is made on
+     */
+    public static void MakeNullMove(Board board) {
+        board.PushUndoState(null, null);
+        //Positions before a null move are not repetitions, since the same side cannot pass in a real game
+        board.PushHistory(true);
+        board.setEnPassantPawn(null);
+        board.SwitchSideToMove();
+    }
+
+    /**
+     * Reverses the last null move made with MakeNullMove(Board)
+     *
+     * @param board The board the null move was made on
+     */
+    public static void reverseNullMove(Board board) {
+        board.PopUndoState();
+        board.PopHistory();
+        board.SwitchSideToMove();
+    }
+
+    /**
+     * Takes one side away from a kings castling availability
+     *
+     * @param board  The board the king is on
+     * @param colour The colour of the king losing the castling side
+     * @param side   The side which can no longer be castled on (the castling availability of a rook)
+     */
+    private static void RemoveCastlingSide(Board board, Colour colour, CastlingAvailability side) {
+        CastlingAvailability current = ((King) board.getKings()[colour.ordinal()]).getCastlingAvailability();
+        if (side == CastlingAvailability.KING_SIDE) {
+            if (current == CastlingAvailability.BOTH) {
+                board.setCastlingAvailability(colour, CastlingAvailability.QUEEN_SIDE);
+            } else if (current == CastlingAvailability.KING_SIDE) {
+                board.setCastlingAvailability(colour, CastlingAvailability.NEITHER);
+            }
+        } else if (side == CastlingAvailability.QUEEN_SIDE) {
+            if (current == CastlingAvailability.BOTH) {
+                board.setCastlingAvailability(colour, CastlingAvailability.KING_SIDE);
+            } else if (current == CastlingAvailability.QUEEN_SIDE) {
+                board.setCastlingAvailability(colour, CastlingAvailability.NEITHER);
             }
         }
-        return false;
+    }
+
+    /**
+     * Determines whether a square is attacked by any piece of the opposite colour
+     *
+     * @param ThreatenedColour The colour of the side which could be threatened
+     * @param ThreatenedSquare The square being checked
+     * @param board            The board object associated with the current game
+     * @return true if an opposing piece attacks the square
+     */
+    public static boolean isThreatenedSquare(Colour ThreatenedColour, Square ThreatenedSquare, Board board) {
+        return isThreatenedSquare(ThreatenedColour, Bitboards.SquareIndex(ThreatenedSquare.ReturnCoordinate()), board);
+    }
+
+    /**
+     * Determines whether a square is attacked by any piece of the opposite colour
+     *
+     * @param ThreatenedColour The colour of the side which could be threatened
+     * @param ThreatenedSquare The square index (0-63) being checked
+     * @param board            The board object associated with the current game
+     * @return true if an opposing piece attacks the square
+     */
+    public static boolean isThreatenedSquare(Colour ThreatenedColour, int ThreatenedSquare, Board board) {
+        Colour attackingColour = Colour.GetOtherColour(ThreatenedColour);
+        long occupied = board.getOccupied();
+
+        //Knight, King and Pawn checks. Pawns attack the square from the squares a pawn on it would attack
+        if ((Bitboards.KNIGHT_ATTACKS[ThreatenedSquare] & board.getPieceBitboard(attackingColour, PieceType.KNIGHT)) != 0
+                || (Bitboards.KING_ATTACKS[ThreatenedSquare] & board.getPieceBitboard(attackingColour, PieceType.KING)) != 0
+                || (Bitboards.PAWN_ATTACKS[ThreatenedColour.ordinal()][ThreatenedSquare] & board.getPieceBitboard(attackingColour, PieceType.PAWN)) != 0) {
+            return true;
+        }
+
+        //Queen, Bishop and Rook checks
+        long queens = board.getPieceBitboard(attackingColour, PieceType.QUEEN);
+        long straightAttackers = board.getPieceBitboard(attackingColour, PieceType.ROOK) | queens;
+        long diagonalAttackers = board.getPieceBitboard(attackingColour, PieceType.BISHOP) | queens;
+
+        return (MagicBitboards.getRookAttacks(ThreatenedSquare, occupied) & straightAttackers) != 0
+                || (MagicBitboards.getBishopAttacks(ThreatenedSquare, occupied) & diagonalAttackers) != 0;
     }
 
     //If the king is in check then no need to check for stalemate.
@@ -384,8 +504,326 @@ public class Game {
      * @return true if the king is checked.
      */
     public static boolean isKingChecked(Colour colour, Board board) {
-        Piece king = colour == Colour.WHITE ? board.getKings()[0] : board.getKings()[1];
-        return isThreatenedSquare(king.getColour(), king.getPieceCoordinate().GetSquareAt(board.getBoardArray()), board);
+        return isThreatenedSquare(colour, board.getKingSquare(colour), board);
+    }
+
+    /**
+     * Finds every piece of one colour which attacks a square
+     *
+     * @param attackingColour The colour of the attacking pieces
+     * @param square          The square index (0-63) being attacked
+     * @param occupied        The occupied squares to use for sliding pieces, which can differ from the board
+     * @param board           The board object associated with the current game
+     * @return a bitboard of the attacking pieces
+     */
+    private static long getAttackers(Colour attackingColour, int square, long occupied, Board board) {
+        long queens = board.getPieceBitboard(attackingColour, PieceType.QUEEN);
+        Colour defendingColour = Colour.GetOtherColour(attackingColour);
+
+        return (Bitboards.KNIGHT_ATTACKS[square] & board.getPieceBitboard(attackingColour, PieceType.KNIGHT))
+                | (Bitboards.KING_ATTACKS[square] & board.getPieceBitboard(attackingColour, PieceType.KING))
+                | (Bitboards.PAWN_ATTACKS[defendingColour.ordinal()][square] & board.getPieceBitboard(attackingColour, PieceType.PAWN))
+                | (MagicBitboards.getRookAttacks(square, occupied) & (board.getPieceBitboard(attackingColour, PieceType.ROOK) | queens))
+                | (MagicBitboards.getBishopAttacks(square, occupied) & (board.getPieceBitboard(attackingColour, PieceType.BISHOP) | queens));
+    }
+
+    /**
+     * Finds every piece of both colours which attacks a square
+     *
+     * @param square   The square index (0-63) being attacked
+     * @param occupied The occupied squares to use for sliding pieces, which can differ from the board
+     * @param board    The board object associated with the current game
+     * @return a bitboard of the attacking pieces
+     */
+    public static long getAllAttackers(int square, long occupied, Board board) {
+        return getAttackers(Colour.WHITE, square, occupied, board) | getAttackers(Colour.BLACK, square, occupied, board);
+    }
+
+    /**
+     * Static exchange evaluation. Plays out every capture on the destination square of a move, each side capturing
+     * with its least valuable attacker and able to stop when carrying on would lose material. When a piece captures,
+     * the rooks, bishops and queens behind it along the same line (x-rays) join the attackers.
+     * Pins and checks are not taken into account
+     *
+     * @param move  An encoded move for the side to move
+     * @param board The board before the move is made
+     * @param gains A buffer of at least EXCHANGE_BUFFER_SIZE ints for the material after each capture, reused between
+     *              calls so the evaluation does not allocate. Each search thread needs its own
+     * @return the material the moving side wins in centipawns, negative if the move loses material
+     */
+    public static int StaticExchangeEvaluation(int move, Board board, int[] gains) {
+        int flags = MoveEncoding.getFlags(move);
+        if (flags == MoveEncoding.KING_CASTLE || flags == MoveEncoding.QUEEN_CASTLE) {
+            return 0;
+        }
+        int origin = MoveEncoding.getOrigin(move);
+        int destination = MoveEncoding.getDestination(move);
+        Piece movedPiece = board.getPieceAt(origin);
+
+        long occupied = board.getOccupied() & ~Bitboards.SquareMask(origin);
+        int[] gain = gains;
+        gain[0] = 0;
+        if (flags == MoveEncoding.EN_PASSANT) {
+            occupied &= ~Bitboards.SquareMask(destination + (movedPiece.getColour() == Colour.WHITE ? -8 : 8));
+            gain[0] = EXCHANGE_VALUES[PieceType.PAWN.ordinal()];
+        } else if (MoveEncoding.isCapture(move)) {
+            gain[0] = EXCHANGE_VALUES[board.getPieceAt(destination).getType().ordinal()];
+        }
+        //The value of the piece standing on the square, which the next capture wins
+        int pieceValue = EXCHANGE_VALUES[movedPiece.getType().ordinal()];
+        if (MoveEncoding.isPromotion(move)) {
+            pieceValue = EXCHANGE_VALUES[MoveEncoding.getPromotionType(move).ordinal()];
+            gain[0] += pieceValue - EXCHANGE_VALUES[PieceType.PAWN.ordinal()];
+        }
+
+        long diagonalSliders = board.getPieceBitboard(Colour.WHITE, PieceType.BISHOP) | board.getPieceBitboard(Colour.BLACK, PieceType.BISHOP)
+                | board.getPieceBitboard(Colour.WHITE, PieceType.QUEEN) | board.getPieceBitboard(Colour.BLACK, PieceType.QUEEN);
+        long straightSliders = board.getPieceBitboard(Colour.WHITE, PieceType.ROOK) | board.getPieceBitboard(Colour.BLACK, PieceType.ROOK)
+                | board.getPieceBitboard(Colour.WHITE, PieceType.QUEEN) | board.getPieceBitboard(Colour.BLACK, PieceType.QUEEN);
+        long attackers = getAllAttackers(destination, occupied, board) & occupied;
+        Colour colour = Colour.GetOtherColour(movedPiece.getColour());
+        int captures = 0;
+
+        while (true) {
+            long colourAttackers = attackers & board.getColourOccupancy(colour);
+            if (colourAttackers == 0) {
+                break;
+            }
+            //The least valuable attacker captures next. PieceType ordinals go from the king down to the pawn
+            int type = PieceType.PAWN.ordinal();
+            long attacker = 0;
+            for (; type >= 0; type--) {
+                attacker = colourAttackers & board.getPieceBitboard(colour, PIECE_TYPES[type]);
+                if (attacker != 0) {
+                    break;
+                }
+            }
+            attacker &= -attacker;
+            //The king can only capture last, when the square is no longer defended
+            if (type == PieceType.KING.ordinal() && (attackers & ~attacker & board.getColourOccupancy(Colour.GetOtherColour(colour))) != 0) {
+                break;
+            }
+
+            captures++;
+            gain[captures] = pieceValue - gain[captures - 1];
+            pieceValue = EXCHANGE_VALUES[type];
+
+            //Moving the attacker off its line can uncover a slider behind it
+            occupied &= ~attacker;
+            if (type == PieceType.PAWN.ordinal() || type == PieceType.BISHOP.ordinal() || type == PieceType.QUEEN.ordinal()) {
+                attackers |= MagicBitboards.getBishopAttacks(destination, occupied) & diagonalSliders;
+            }
+            if (type == PieceType.ROOK.ordinal() || type == PieceType.QUEEN.ordinal()) {
+                attackers |= MagicBitboards.getRookAttacks(destination, occupied) & straightSliders;
+            }
+            attackers &= occupied;
+            colour = Colour.GetOtherColour(colour);
+        }
+
+        //Each side only makes a capture if it does not lose material by doing so
+        while (captures > 0) {
+            gain[captures - 1] = -Math.max(-gain[captures - 1], gain[captures]);
+            captures--;
+        }
+        return gain[0];
+    }
+
+    /**
+     * A capture of a piece worth at least as much as the capturing piece can never lose material,
+     * so the full exchange is only evaluated for the other captures
+     *
+     * @param move  An encoded capture or promotion for the side to move
+     * @param board The board before the move is made
+     * @param gains A buffer for StaticExchangeEvaluation
+     * @return true if the move loses material by static exchange evaluation
+     */
+    public static boolean isLosingCapture(int move, Board board, int[] gains) {
+        if (MoveEncoding.isPromotion(move) || MoveEncoding.getFlags(move) == MoveEncoding.EN_PASSANT) {
+            return false;
+        }
+        int attackerValue = EXCHANGE_VALUES[board.getPieceAt(MoveEncoding.getOrigin(move)).getType().ordinal()];
+        if (MoveEncoding.isCapture(move) && EXCHANGE_VALUES[board.getPieceAt(MoveEncoding.getDestination(move)).getType().ordinal()] >= attackerValue) {
+            return false;
+        }
+        return StaticExchangeEvaluation(move, board, gains) < 0;
+    }
+
+    /**
+     * Finds every square attacked by one colour
+     *
+     * @param attackingColour The colour of the attacking pieces
+     * @param occupied        The occupied squares to use for sliding pieces, which can differ from the board
+     * @param board           The board object associated with the current game
+     * @return a bitboard of the attacked squares
+     */
+    public static long getAttackedSquares(Colour attackingColour, long occupied, Board board) {
+        long attacked = Bitboards.PawnAttacks(board.getPieceBitboard(attackingColour, PieceType.PAWN), attackingColour)
+                | Bitboards.KING_ATTACKS[board.getKingSquare(attackingColour)];
+        long queens = board.getPieceBitboard(attackingColour, PieceType.QUEEN);
+
+        long knights = board.getPieceBitboard(attackingColour, PieceType.KNIGHT);
+        while (knights != 0) {
+            attacked |= Bitboards.KNIGHT_ATTACKS[Long.numberOfTrailingZeros(knights)];
+            knights &= knights - 1;
+        }
+        long diagonals = board.getPieceBitboard(attackingColour, PieceType.BISHOP) | queens;
+        while (diagonals != 0) {
+            attacked |= MagicBitboards.getBishopAttacks(Long.numberOfTrailingZeros(diagonals), occupied);
+            diagonals &= diagonals - 1;
+        }
+        long straights = board.getPieceBitboard(attackingColour, PieceType.ROOK) | queens;
+        while (straights != 0) {
+            attacked |= MagicBitboards.getRookAttacks(Long.numberOfTrailingZeros(straights), occupied);
+            straights &= straights - 1;
+        }
+        return attacked;
+    }
+
+    /**
+     * @param colour The colour of the king
+     * @param board  The board object associated with the current game
+     * @return a bitboard of the opposing pieces which are giving check to the king
+     */
+    public static long getCheckers(Colour colour, Board board) {
+        return getAttackers(Colour.GetOtherColour(colour), board.getKingSquare(colour), board.getOccupied(), board);
+    }
+
+    /**
+     * A piece is pinned when it is the only piece between its king and an opposing rook, bishop or queen
+     * on the same line, so moving it off that line would expose the king to check.
+     *
+     * @param colour The colour of the king (and the pinned pieces)
+     * @param board  The board object associated with the current game
+     * @return a bitboard of the pinned pieces
+     */
+    public static long getPinnedPieces(Colour colour, Board board) {
+        Colour opponent = Colour.GetOtherColour(colour);
+        int kingSquare = board.getKingSquare(colour);
+        long occupied = board.getOccupied();
+        long queens = board.getPieceBitboard(opponent, PieceType.QUEEN);
+
+        //Opposing sliders which would attack the king on an empty board
+        long snipers = (MagicBitboards.getRookAttacks(kingSquare, 0L) & (board.getPieceBitboard(opponent, PieceType.ROOK) | queens))
+                | (MagicBitboards.getBishopAttacks(kingSquare, 0L) & (board.getPieceBitboard(opponent, PieceType.BISHOP) | queens));
+
+        long pinned = 0;
+        while (snipers != 0) {
+            int sniper = Long.numberOfTrailingZeros(snipers);
+            snipers &= snipers - 1;
+
+            long blockers = Bitboards.BETWEEN[kingSquare][sniper] & occupied;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0 && (blockers & board.getColourOccupancy(colour)) != 0) {
+                pinned |= blockers;
+            }
+        }
+        return pinned;
+    }
+
+    /**
+     * Tests whether a pseudo-legal move would leave the moving sides king in check, without making the move.
+     * King moves are tested against the squares the opponent attacks, other moves must deal with any check
+     * (by capturing or blocking) and pinned pieces can only move along their pin line.
+     *
+     * @param move  A pseudo-legal move for the side to move
+     * @param board The board object associated with the current game
+     * @return true if the move is legal
+     */
+    public static boolean isLegalMove(Move move, Board board) {
+        if (move.getMovedPiece() == null) {
+            return false;
+        }
+        return isLegalMove(MoveEncoding.FromMove(move), board);
+    }
+
+    /**
+     * Tests whether a pseudo-legal move would leave the moving sides king in check, using checking and pinned pieces
+     * which have already been found. Testing several moves of one position this way finds them only once
+     *
+     * @param move     A pseudo-legal move for the side to move
+     * @param board    The board object associated with the current game
+     * @param checkers The pieces giving check to the moving sides king, from getCheckers
+     * @param pinned   The moving sides pinned pieces, from getPinnedPieces
+     * @return true if the move is legal
+     */
+    public static boolean isLegalMove(Move move, Board board, long checkers, long pinned) {
+        if (move.getMovedPiece() == null) {
+            return false;
+        }
+        return isLegalMove(MoveEncoding.FromMove(move), board, checkers, pinned);
+    }
+
+    /**
+     * Tests whether an encoded pseudo-legal move would leave the moving sides king in check, without making the move.
+     *
+     * @param move  An encoded pseudo-legal move for the side to move
+     * @param board The board object associated with the current game
+     * @return true if the move is legal
+     */
+    public static boolean isLegalMove(int move, Board board) {
+        Piece movedPiece = board.getPieceAt(MoveEncoding.getOrigin(move));
+        if (movedPiece == null) {
+            return false;
+        }
+        Colour colour = movedPiece.getColour();
+        return isLegalMove(move, board, getCheckers(colour, board), getPinnedPieces(colour, board));
+    }
+
+    /**
+     * Tests whether an encoded pseudo-legal move would leave the moving sides king in check, using checking and
+     * pinned pieces which have already been found
+     *
+     * @param move     An encoded pseudo-legal move for the side to move
+     * @param board    The board object associated with the current game
+     * @param checkers The pieces giving check to the moving sides king, from getCheckers
+     * @param pinned   The moving sides pinned pieces, from getPinnedPieces
+     * @return true if the move is legal
+     */
+    public static boolean isLegalMove(int move, Board board, long checkers, long pinned) {
+        int origin = MoveEncoding.getOrigin(move);
+        int destination = MoveEncoding.getDestination(move);
+        Piece movedPiece = board.getPieceAt(origin);
+        if (movedPiece == null) {
+            return false;
+        }
+
+        Colour colour = movedPiece.getColour();
+        Colour opponent = Colour.GetOtherColour(colour);
+        int kingSquare = board.getKingSquare(colour);
+
+        if (movedPiece.getType() == PieceType.KING) {
+            //Castling is only generated when it is legal
+            if (MoveEncoding.isCastle(move)) {
+                return true;
+            }
+            //The king is removed from the occupancy so it cannot block a slider attacking along the line it moves on
+            long occupied = board.getOccupied() ^ Bitboards.SquareMask(origin);
+            return getAttackers(opponent, destination, occupied, board) == 0;
+        }
+
+        if (MoveEncoding.getFlags(move) == MoveEncoding.EN_PASSANT) {
+            //Two pawns leave the same rank, which can uncover a check that is not a normal pin, so the resulting position is tested
+            int captured = destination + (colour == Colour.WHITE ? -8 : 8);
+            long occupied = (board.getOccupied() ^ Bitboards.SquareMask(origin) ^ Bitboards.SquareMask(captured))
+                    | Bitboards.SquareMask(destination);
+            return (getAttackers(opponent, kingSquare, occupied, board) & ~Bitboards.SquareMask(captured)) == 0;
+        }
+
+        if (checkers != 0) {
+            //In double check only the king can move
+            if ((checkers & (checkers - 1)) != 0) {
+                return false;
+            }
+            //Otherwise the checking piece must be captured or the check must be blocked
+            long checkMask = checkers | Bitboards.BETWEEN[kingSquare][Long.numberOfTrailingZeros(checkers)];
+            if ((checkMask & Bitboards.SquareMask(destination)) == 0) {
+                return false;
+            }
+        }
+
+        if ((pinned & Bitboards.SquareMask(origin)) != 0) {
+            return (Bitboards.LINE[kingSquare][origin] & Bitboards.SquareMask(destination)) != 0;
+        }
+        return true;
     }
 
     /**
@@ -395,7 +833,8 @@ public class Game {
      */
     public boolean isKingCheckmated(Colour colour) {
         King king = colour == Colour.WHITE ? (King) board.getKings()[0] : (King) board.getKings()[1];
-        List<Piece> pieces = colour == Colour.WHITE ? board.getWhitePieces() : board.getBlackPieces();
+        //Copied since making a promotion changes the list while it is being looped over
+        List<Piece> pieces = new ArrayList<>(colour == Colour.WHITE ? board.getWhitePieces() : board.getBlackPieces());
 
         final CastlingAvailability castlingAvailability = king.getCastlingAvailability();
         final Pawn enPassantPawn = board.getEnPassantPawn();
@@ -441,8 +880,23 @@ public class Game {
         return false;
     }
 
+    /**
+     * @return true if the current position has occurred twice before with the same side to move
+     */
+    public boolean isThreefoldRepetition() {
+        return board.getRepetitionCount() >= 2;
+    }
+
+    /**
+     * @return true if 50 moves (100 halfmoves) have been made by each side without a capture or pawn move
+     */
+    public boolean isFiftyMoveRule() {
+        return board.getHalfmoveClock() >= 100;
+    }
+
     public boolean isGameOver() {
-        return isKingCheckmated(Colour.WHITE) || isKingCheckmated(Colour.BLACK) || isStalemate(Colour.WHITE) || isStalemate(Colour.BLACK);
+        return isKingCheckmated(Colour.WHITE) || isKingCheckmated(Colour.BLACK) || isStalemate(Colour.WHITE) || isStalemate(Colour.BLACK)
+                || isThreefoldRepetition() || isFiftyMoveRule();
     }
 
     /**
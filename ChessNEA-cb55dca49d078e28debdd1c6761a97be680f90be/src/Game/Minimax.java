@@ -1,224 +1,1032 @@
 package Game;
 
 import Game.Board.Board;
+import Game.Board.Mobility;
 import Game.Move.Move;
-import Game.Piece.Piece;
+import Game.Move.MoveEncoding;
+import Game.Move.MoveGenerator;
 import Game.Piece.PieceType;
-import Game.Piece.Pieces.King;
-import Game.Piece.Pieces.Pawn;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.util.Arrays;
 
 public final class Minimax {
 
+    /**
+     * The deepest ply the search can reach, which is the number of move buffers
+     */
+    private static final int MAX_PLY = 64;
+
+    /**
+     * The score in centipawns of checkmating at the root. A mate found further from the root scores one less for each
+     * ply, so the search prefers the quickest mate and the slowest loss. Every score at least MATE - MAX_PLY from 0 is a mate
+     */
+    public static final int MATE = 100000;
+
+    /**
+     * The transposition table size used when one is not given
+     */
+    public static final int DEFAULT_TABLE_SIZE_MB = 16;
+
+    /**
+     * Piece values in pawns, indexed by PieceType ordinal (King, Queen, Rook, Bishop, Knight, Pawn)
+     */
+    private static final int[] PIECE_VALUES = {200, 9, 5, 3, 3, 1}; //todo can be edited later depending on difficulty
+
+    /**
+     * Extra margin in pawns for delta pruning in the quiescence search. A capture is skipped when even winning
+     * the captured piece plus this margin could not raise the score to alpha (or lower it to beta for the minimizer)
+     */
+    private static final int DELTA_MARGIN = 2;
+
+    /**
+     * The bonus in pawns for giving check. It is kept small next to the piece-square scores, the search finds
+     * out what a check is really worth by searching the replies to it
+     */
+    private static final double CHECK_BONUS = 0.3;
+
+    /**
+     * Half the width in centipawns of the aspiration window searched around the previous iterations score,
+     * and the width past which a failed window is opened up completely
+     */
+    private static final double ASPIRATION_WINDOW = 50;
+    private static final double MAX_ASPIRATION_WINDOW = 1000;
+
+    /**
+     * Iterations before this depth are searched with a full window, since their scores change too much between depths
+     */
+    private static final int ASPIRATION_DEPTH = 4;
+
+    /**
+     * Null-move pruning is tried from this depth, and the null move is searched this many plies shallower
+     * than a normal move (one more from NULL_MOVE_DEEP_DEPTH)
+     */
+    private static final int NULL_MOVE_DEPTH = 3;
+    private static final int NULL_MOVE_REDUCTION = 2;
+    private static final int NULL_MOVE_DEEP_DEPTH = 7;
+
+    /**
+     * Quiet moves after the first LATE_MOVE_COUNT moves are searched one ply shallower from LATE_MOVE_DEPTH,
+     * and two plies shallower after twice as many moves from LATE_MOVE_DEEP_DEPTH
+     */
+    private static final int LATE_MOVE_COUNT = 3;
+    private static final int LATE_MOVE_DEPTH = 3;
+    private static final int LATE_MOVE_DEEP_DEPTH = 6;
+
+    /**
+     * Futility margins in centipawns, indexed by the remaining depth. Near the leaves a quiet move is skipped when
+     * the static evaluation plus the margin cannot reach alpha
+     */
+    private static final double[] FUTILITY_MARGINS = {0, 200, 500};
+
     private final Game game;
-    private static Move currentBestMove;
+    private final TranspositionTable transpositionTable;
+    private boolean usePrincipalVariationSearch = true;
+    private int currentBestMove = MoveEncoding.NONE;
     private int depth;
 
-    private int temp = 0; // TODO remove
+    /*
+    Moves are generated as encoded ints into one preallocated buffer per ply, so searching a node
+    does not create any move objects
+     */
+    private final int[][] MoveBuffers = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+    private final MoveOrdering moveOrdering = new MoveOrdering(MAX_PLY);
+
+    private long nodes = 0;
+
+    /*
+    The principal variation of each ply, built up as the search unwinds. PrincipalVariations[ply] holds the best line
+    found from the node being searched at that ply, and PrincipalVariationLengths[ply] the number of moves in it
+     */
+    private final int[][] PrincipalVariations = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] PrincipalVariationLengths = new int[MAX_PLY + 1];
+
+    //Search statistics for SearchInfo, counted from the start of each search (the selective depth from each iteration)
+    private int selectiveDepth;
+    private long hashProbes;
+    private long hashHits;
+    private long expandedNodes;
+    private long betaCutoffs;
+    private long firstMoveCutoffs;
+    private SearchListener listener;
+    private SearchInfo lastInfo;
+
+    /*
+    Iterative deepening state. The limits are only set while IterativeDeepening is running, and once stopped is set
+    every node returns straight away so the unfinished iteration unwinds without updating the best move or the table.
+    stopped is volatile since a parallel search stops its helpers from another thread
+     */
+    private SearchLimits limits;
+    private long deadline;
+    private volatile boolean stopped;
+    private int depthOffset;
+    private int previousBestMove = MoveEncoding.NONE;
+    private int completedDepth;
 
     public Minimax(Game game) {
+        this(game, new TranspositionTable(DEFAULT_TABLE_SIZE_MB));
+    }
+
+    /**
+     * @param game               The game being searched
+     * @param transpositionTable The transposition table to use, which can be kept between searches
+     */
+    public Minimax(Game game, TranspositionTable transpositionTable) {
         this.game = game;
+        this.transpositionTable = transpositionTable;
+    }
+
+    /**
+     * Searches the current position one ply deeper each iteration until one of the limits is reached.
+     * Each iteration searches the best move of the previous iteration first, and when the search is stopped
+     * part way through an iteration the best move of the last completed iteration is kept.
+     * The first iteration is always completed so there is always a move to play.
+     *
+     * @param colour The colour to find a move for, which must be the side to move
+     * @param limits The depth, time and node limits of the search
+     * @return the best move found, or null if there are no legal moves
+     */
+    public Move IterativeDeepening(Colour colour, SearchLimits limits) {
+        return Search(colour, limits).getBestMove();
+    }
+
+    /**
+     * Runs IterativeDeepening and reports the search as well as the best move. The listener, if one is set,
+     * is called after each completed iteration
+     *
+     * @param colour The colour to find a move for, which must be the side to move
+     * @param limits The depth, time and node limits of the search
+     * @return the best move and the report of the last completed iteration
+     */
+    public SearchResult Search(Colour colour, SearchLimits limits) {
+        stopped = false;
+        RunIterativeDeepening(colour, limits);
+        return new SearchResult(getCurrentBestMove(), lastInfo);
+    }
+
+    /**
+     * Lazy SMP search. Helper threads run iterative deepening on their own copies of the board and share this
+     * searches transposition table, so the positions they search fill the table for the main search.
+     * Half of the helpers start one ply deeper so the threads are not all searching the same depth.
+     * The helpers are stopped when the main search (on the calling thread) finishes, and its result is returned.
+     *
+     * @param colour      The colour to find a move for, which must be the side to move
+     * @param limits      The depth, time and node limits of the main search
+     * @param threadCount The total number of threads to search with, including the calling thread
+     * @return the best move and the report of the main searches last completed iteration
+     */
+    public SearchResult ParallelSearch(Colour colour, SearchLimits limits, int threadCount) {
+        Minimax[] helpers = new Minimax[Math.max(threadCount - 1, 0)];
+        Thread[] threads = new Thread[helpers.length];
+
+        //Helpers only stop when the main search stops them (or at the time limit)
+        SearchLimits helperLimits = new SearchLimits(0, limits.getTimeMillis(), 0);
+        /*
+        Each helper gets its own copy of the board, so no pieces are shared between threads. The copy keeps the
+        position history, so helpers find repetitions of game positions and do not store them in the shared table
+        with normal scores
+         */
+        for (int i = 0; i < helpers.length; i++) {
+            Minimax helper = new Minimax(new Game(new Board(game.getBoard())), transpositionTable);
+            helper.usePrincipalVariationSearch = usePrincipalVariationSearch;
+            helper.depthOffset = (i + 1) & 1;
+            helpers[i] = helper;
+            threads[i] = new Thread(() -> helper.RunIterativeDeepening(colour, helperLimits), "Search helper " + (i + 1));
+            threads[i].setDaemon(true);
+        }
+
+        stopped = false;
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        RunIterativeDeepening(colour, limits);
+
+        for (Minimax helper : helpers) {
+            helper.Stop();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return new SearchResult(getCurrentBestMove(), lastInfo);
+    }
+
+    /**
+     * Stops a running search. It is safe to call from another thread, the search stops at its next node
+     */
+    public void Stop() {
+        stopped = true;
+    }
+
+    /**
+     * The iterative deepening loop. The best move is left in currentBestMove
+     *
+     * @param colour The colour to find a move for
+     * @param limits The depth, time and node limits of the search
+     */
+    private void RunIterativeDeepening(Colour colour, SearchLimits limits) {
+        Board board = game.getBoard();
+        int maxDepth = limits.getMaxDepth() > 0 ? Math.min(limits.getMaxDepth(), MAX_PLY - 1) : MAX_PLY - 1;
+        long startTime = System.nanoTime();
+
+        this.limits = limits;
+        this.deadline = startTime + limits.getTimeMillis() * 1000000L;
+        this.nodes = 0;
+        this.previousBestMove = MoveEncoding.NONE;
+        this.completedDepth = 0;
+        this.hashProbes = 0;
+        this.hashHits = 0;
+        this.expandedNodes = 0;
+        this.betaCutoffs = 0;
+        this.firstMoveCutoffs = 0;
+        this.lastInfo = null;
+        moveOrdering.NewSearch();
+
+        int completedBestMove = MoveEncoding.NONE;
+        double previousEvaluation = 0;
+        for (int searchDepth = 1 + depthOffset; searchDepth <= maxDepth; searchDepth++) {
+            selectiveDepth = 0;
+            double evaluation;
+            if (usePrincipalVariationSearch) {
+                board.setSideToMove(colour);
+                evaluation = AspirationSearch(board, searchDepth, previousEvaluation);
+            } else {
+                evaluation = minimaxTraversal(board, searchDepth, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, true, colour);
+            }
+            if (stopped) {
+                break;
+            }
+            completedBestMove = currentBestMove;
+            previousBestMove = currentBestMove;
+            previousEvaluation = evaluation;
+            completedDepth = searchDepth;
+            lastInfo = new SearchInfo(searchDepth, selectiveDepth, evaluation, getPrincipalVariation(), nodes,
+                    (System.nanoTime() - startTime) / 1000000, hashProbes, hashHits, expandedNodes, betaCutoffs, firstMoveCutoffs);
+            if (listener != null) {
+                listener.IterationComplete(lastInfo);
+            }
+
+            //Searching deeper cannot improve on a forced mate, and there is no point searching a position with no moves
+            if (IsMateScore(evaluation) || currentBestMove == MoveEncoding.NONE) {
+                break;
+            }
+            //The next iteration normally takes several times as long as this one, so do not start it past half the budget
+            if (limits.getTimeMillis() > 0 && System.nanoTime() - startTime > limits.getTimeMillis() * 500000L) {
+                break;
+            }
+        }
+
+        this.limits = null;
+        this.previousBestMove = MoveEncoding.NONE;
+        currentBestMove = completedBestMove;
+    }
+
+    /**
+     * @return the principal variation of the last root search, or just the best move if none was recorded
+     * (minimaxTraversal does not record one)
+     */
+    private int[] getPrincipalVariation() {
+        if (currentBestMove == MoveEncoding.NONE) {
+            return new int[0];
+        }
+        if (!usePrincipalVariationSearch || PrincipalVariationLengths[0] == 0 || PrincipalVariations[0][0] != currentBestMove) {
+            return new int[]{currentBestMove};
+        }
+        return Arrays.copyOf(PrincipalVariations[0], PrincipalVariationLengths[0]);
+    }
+
+    /**
+     * Makes a move the first move of the principal variation at a ply, followed by the line found below it
+     *
+     * @param ply  The ply of the node
+     * @param move The move which has become the best move of the node
+     */
+    private void UpdatePrincipalVariation(int ply, int move) {
+        int childLength = PrincipalVariationLengths[ply + 1];
+        PrincipalVariations[ply][0] = move;
+        System.arraycopy(PrincipalVariations[ply + 1], 0, PrincipalVariations[ply], 1, childLength);
+        PrincipalVariationLengths[ply] = childLength + 1;
+    }
+
+    /**
+     * Counts a beta cutoff for the search statistics
+     *
+     * @param moveNumber The number of moves searched in the node before the move which caused the cutoff
+     */
+    private void CountCutoff(int moveNumber) {
+        betaCutoffs++;
+        if (moveNumber == 0) {
+            firstMoveCutoffs++;
+        }
+    }
+
+    /**
+     * Searches the root with a narrow window around the previous iterations score, which cuts off far more of the tree
+     * than a full window when the score does not change much. If the score falls outside the window the root is
+     * searched again with that side of the window widened, until the score lands inside it
+     *
+     * @param board              The board being searched, with the colour to find a move for to move
+     * @param searchDepth        The depth to search to
+     * @param previousEvaluation The score of the previous iteration
+     * @return the evaluation of the position from the side to moves point of view
+     */
+    private double AspirationSearch(Board board, int searchDepth, double previousEvaluation) {
+        if (completedDepth < ASPIRATION_DEPTH || IsMateScore(previousEvaluation)) {
+            return principalVariationSearch(board, searchDepth, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        }
+        double window = ASPIRATION_WINDOW;
+        double alpha = previousEvaluation - window;
+        double beta = previousEvaluation + window;
+        while (true) {
+            double evaluation = principalVariationSearch(board, searchDepth, alpha, beta);
+            if (stopped) {
+                return 0;
+            }
+            window *= 4;
+            if (evaluation <= alpha) {
+                alpha = window > MAX_ASPIRATION_WINDOW ? Double.NEGATIVE_INFINITY : evaluation - window;
+            } else if (evaluation >= beta) {
+                beta = window > MAX_ASPIRATION_WINDOW ? Double.POSITIVE_INFINITY : evaluation + window;
+                //The move which failed high is searched first next time
+                previousBestMove = currentBestMove;
+            } else {
+                return evaluation;
+            }
+        }
+    }
+
+    /**
+     * Sets stopped if the node or time budget has run out. The clock is only read every 1024 nodes
+     *
+     * @return true if the search should stop
+     */
+    private boolean CheckLimits() {
+        //The first iteration is never stopped
+        if (limits == null || depth == 1) {
+            return false;
+        }
+        if (limits.getMaxNodes() > 0 && nodes >= limits.getMaxNodes()) {
+            stopped = true;
+        } else if (limits.getTimeMillis() > 0 && (nodes & 1023) == 0 && System.nanoTime() >= deadline) {
+            stopped = true;
+        }
+        return stopped;
     }
 
     public double minimaxTraversal(Board currentPosition, int searchDepth, double alpha, double beta, boolean maximizer, Colour maximizingColour) {
-        temp++;
-        if (temp == 0){
-            depth = searchDepth;
+        depth = searchDepth;
+        currentBestMove = MoveEncoding.NONE;
+        //The side to move is part of the positions key
+        currentPosition.setSideToMove(maximizer ? maximizingColour : Colour.GetOtherColour(maximizingColour));
+        return minimaxTraversal(currentPosition, searchDepth, alpha, beta, maximizer, maximizingColour, 0);
+    }
+
+    /**
+     * @param ply The number of moves made since the root, which selects the move buffer.
+     *            The best move is only recorded at the root (ply 0)
+     */
+    private double minimaxTraversal(Board currentPosition, int searchDepth, double alpha, double beta, boolean maximizer, Colour maximizingColour, int ply) {
+        nodes++;
+        selectiveDepth = Math.max(selectiveDepth, ply);
+        if (stopped || CheckLimits()) {
+            return 0;
         }
-        //System.out.println("");
-        if (searchDepth == 0 || game.isGameOver()) {
+        if (ply > 0 && IsDraw(currentPosition)) {
+            return 0;
+        }
+        if (ply == MAX_PLY) {
             return evaluateBranch(currentPosition, maximizingColour);
         }
-        List<Move> moves = getChildren(currentPosition, maximizer, maximizingColour);
-        if (moves.get(0).getMovedPiece() != null){
-            if (moves.get(0).getMovedPiece().getColour() == maximizingColour) {
-                Random r = new Random();
-                currentBestMove = moves.get(r.nextInt(moves.size()));
+        if (searchDepth == 0) {
+            return quiescence(currentPosition, alpha, beta, maximizer, maximizingColour, ply);
+        }
+
+        /*
+        Scores in the transposition table are from the side to move's point of view, so they are negated
+        (and lower and upper bounds swapped) in minimizer nodes. The root always searches so it finds a best move
+         */
+        final long key = currentPosition.getZobristKey();
+        final double alphaOriginal = alpha, betaOriginal = beta;
+        long entry = transpositionTable.Probe(key);
+        hashProbes++;
+        if (entry != 0) {
+            hashHits++;
+        }
+        int hashMove = ply == 0 ? previousBestMove : MoveEncoding.NONE;
+        if (entry != 0) {
+            if (hashMove == MoveEncoding.NONE) {
+                hashMove = TranspositionTable.getMove(entry);
+            }
+            if (ply > 0 && TranspositionTable.getDepth(entry) >= searchDepth) {
+                double score = FromTableScore(TranspositionTable.getScore(entry), ply);
+                score = maximizer ? score : -score;
+                int bound = maximizer ? TranspositionTable.getBound(entry) : FlipBound(TranspositionTable.getBound(entry));
+                if (bound == TranspositionTable.EXACT) {
+                    return score;
+                } else if (bound == TranspositionTable.LOWER_BOUND) {
+                    alpha = Math.max(alpha, score);
+                } else {
+                    beta = Math.min(beta, score);
+                }
+                if (beta <= alpha) {
+                    return score;
+                }
             }
         }
 
-        //Get castling availability using XOR operator
-        King king = (maximizer ^ maximizingColour == Colour.WHITE) ? (King) currentPosition.getKings()[1] : (King) currentPosition.getKings()[0];
-        final CastlingAvailability castlingAvailability = king.getCastlingAvailability();
+        Colour colourToMove = maximizer ? maximizingColour : Colour.GetOtherColour(maximizingColour);
+        int[] moves = MoveBuffers[ply];
+        int moveCount = getChildren(currentPosition, colourToMove, moves);
+        expandedNodes++;
 
-        //Store Current EnPassant Pawn
-        final Pawn enPassantPawn = currentPosition.getEnPassantPawn();
+        //The best move from the previous iteration (at the root) or from the transposition table is searched first
+        moveOrdering.ScoreMoves(currentPosition, moves, moveCount, hashMove, ply);
+        int bestMove = MoveEncoding.NONE;
 
         if (maximizer) {
             double maxEvaluation = Double.NEGATIVE_INFINITY;
-            for (Move currentNode : moves) {
-                if (currentNode.getMovedPiece() != null){
-                    Game.MakeMove(currentNode, currentPosition);
-
-//                    System.out.println("Move Made");
-//                    game.getBoard().PrintBoard();
-//                    System.out.println("");
-
-                    //game.getBoard().PrintBoard(); //todo Remove
-                    //if (currentNode.wasCapture()) System.out.println("Capture"); //todo remove
-                    double nodeEvaluation = minimaxTraversal(currentPosition, searchDepth - 1, alpha, beta, false, maximizingColour);
-                    //System.out.println("Node Evaluation: " + nodeEvaluation);
-                    Game.reverseMove(currentNode, currentPosition, castlingAvailability, enPassantPawn);
-
-//                    System.out.println("Move Reversed");
-//                    game.getBoard().PrintBoard();
-//                    System.out.println("");
-
-                    if (nodeEvaluation > maxEvaluation) {
-                        maxEvaluation = nodeEvaluation;
-                        if (currentNode.getMovedPiece().getColour() == maximizingColour) {
-                            currentBestMove = currentNode;
-                        }
-                    }
-                    alpha = Math.max(alpha, nodeEvaluation);
-                    if (beta <= alpha) {
-                        break;
+            for (int i = 0; i < moveCount; i++) {
+                int currentNode = moveOrdering.NextMove(moves, moveCount, i, ply);
+                Game.MakeMove(currentNode, currentPosition);
+                double nodeEvaluation = minimaxTraversal(currentPosition, searchDepth - 1, alpha, beta, false, maximizingColour, ply + 1);
+                Game.reverseMove(currentNode, currentPosition);
+                if (stopped) {
+                    return 0;
+                }
+
+                if (nodeEvaluation > maxEvaluation) {
+                    maxEvaluation = nodeEvaluation;
+                    bestMove = currentNode;
+                    if (ply == 0) {
+                        currentBestMove = currentNode;
                     }
+                } else if (ply == 0 && currentBestMove == MoveEncoding.NONE) {
+                    //Every move loses, but a legal move must still be played
+                    currentBestMove = currentNode;
+                }
+                alpha = Math.max(alpha, nodeEvaluation);
+                if (beta <= alpha) {
+                    moveOrdering.RecordCutoff(currentPosition, currentNode, ply, searchDepth);
+                    CountCutoff(i);
+                    break;
                 }
             }
+            //Checkmate and stalemate are found from the move list, a node with no legal moves is over
+            if (moveCount == 0) {
+                maxEvaluation = TerminalEvaluation(currentPosition, colourToMove, true, ply);
+            }
+            StoreNode(key, bestMove, maxEvaluation, searchDepth, alphaOriginal, betaOriginal, true, ply);
             return maxEvaluation;
         } else {
             double minEvaluation = Double.POSITIVE_INFINITY;
-            for (Move currentNode : moves) {
-                if (currentNode.getMovedPiece() != null){
-                    Game.MakeMove(currentNode, currentPosition);
-
-//                System.out.println("Move Made");
-//                game.getBoard().PrintBoard();
-//                System.out.println("");
-
-                    //game.getBoard().PrintBoard(); //todo remove
-                    //if (currentNode.wasCapture()) System.out.println("Capture"); //todo remove
-                    double nodeEvaluation = minimaxTraversal(currentPosition, searchDepth - 1, alpha, beta, true, maximizingColour);
-                    //System.out.println("min Node evaluation: " + nodeEvaluation);
-                    Game.reverseMove(currentNode, currentPosition, castlingAvailability, enPassantPawn);
-
-//                System.out.println("Move Reversed");
-//                game.getBoard().PrintBoard();
-//                System.out.println("");
-
-                    if (nodeEvaluation < minEvaluation) {
-                        minEvaluation = nodeEvaluation;
-                        if (currentNode.getMovedPiece().getColour() == maximizingColour) {
-                            currentBestMove = currentNode;
-                        }
-                    }
-                    beta = Math.min(beta, nodeEvaluation);
-                    if (beta <= alpha) {
-                        break;
-                    }
+            for (int i = 0; i < moveCount; i++) {
+                int currentNode = moveOrdering.NextMove(moves, moveCount, i, ply);
+                Game.MakeMove(currentNode, currentPosition);
+                double nodeEvaluation = minimaxTraversal(currentPosition, searchDepth - 1, alpha, beta, true, maximizingColour, ply + 1);
+                Game.reverseMove(currentNode, currentPosition);
+                if (stopped) {
+                    return 0;
+                }
+
+                if (nodeEvaluation < minEvaluation) {
+                    minEvaluation = nodeEvaluation;
+                    bestMove = currentNode;
+                }
+                beta = Math.min(beta, nodeEvaluation);
+                if (beta <= alpha) {
+                    moveOrdering.RecordCutoff(currentPosition, currentNode, ply, searchDepth);
+                    CountCutoff(i);
+                    break;
                 }
             }
+            if (moveCount == 0) {
+                minEvaluation = TerminalEvaluation(currentPosition, colourToMove, false, ply);
+            }
+            StoreNode(key, bestMove, minEvaluation, searchDepth, alphaOriginal, betaOriginal, false, ply);
             return minEvaluation;
         }
     }
 
-    private List<Move> getChildren(Board board, boolean maximizer, Colour maximizingColour) {
-        List<Move> children = new ArrayList<>();
-        List<Piece> pieces;
+    /**
+     * Negamax principal variation search from the side to move's point of view. The best move is recorded
+     * in currentBestMove like minimaxTraversal
+     *
+     * @param currentPosition The board being searched
+     * @param searchDepth     The depth to search to
+     * @param alpha           The best score the side to move is already guaranteed
+     * @param beta            The best score the opponent is already guaranteed
+     * @return the evaluation of the position from the side to moves point of view
+     */
+    public double principalVariationSearch(Board currentPosition, int searchDepth, double alpha, double beta) {
+        depth = searchDepth;
+        currentBestMove = MoveEncoding.NONE;
+        return principalVariationSearch(currentPosition, searchDepth, alpha, beta, 0, true);
+    }
 
-        if (maximizer) {
-            pieces = maximizingColour == Colour.WHITE ? board.getWhitePieces() : board.getBlackPieces();
-        } else {
-            pieces = maximizingColour == Colour.WHITE ? board.getBlackPieces() : board.getWhitePieces();
+    /**
+     * The first move of each node is searched with the full window. Every later move is expected to be worse, so it is
+     * searched with a null window (alpha, alpha + 1) which only shows whether it is, and is searched again with
+     * the full window if it turns out to be better than alpha.
+     * <p>
+     * Outside the principal variation (null window nodes) the search is selective: a position which is still above beta
+     * after passing the move (null-move pruning) is cut off, quiet moves near the leaves which cannot reach alpha are
+     * skipped (futility pruning), and late quiet moves are searched shallower first (late move reductions).
+     * None of these are used when the side to move is in check
+     *
+     * @param ply           The number of moves made since the root, which selects the move buffer.
+     *                      The best move is only recorded at the root (ply 0)
+     * @param allowNullMove False straight after a null move, so two are never made in a row
+     */
+    private double principalVariationSearch(Board currentPosition, int searchDepth, double alpha, double beta, int ply, boolean allowNullMove) {
+        nodes++;
+        PrincipalVariationLengths[ply] = 0;
+        selectiveDepth = Math.max(selectiveDepth, ply);
+        if (stopped || CheckLimits()) {
+            return 0;
+        }
+        if (ply > 0 && IsDraw(currentPosition)) {
+            return 0;
+        }
+        Colour colourToMove = currentPosition.getSideToMove();
+        if (ply == MAX_PLY) {
+            return evaluateBranch(currentPosition, colourToMove);
+        }
+        if (searchDepth == 0) {
+            return negamaxQuiescence(currentPosition, alpha, beta, ply);
         }
 
-        for (Piece piece : pieces) {
-            children.addAll(piece.CalculateValidMoves(board));
+        /*
+        Scores in the transposition table are already from the side to move's point of view. Only null window nodes
+        are cut off by the table, a node on the principal variation is always searched so its line is built up to the leaf
+         */
+        final long key = currentPosition.getZobristKey();
+        final double alphaOriginal = alpha, betaOriginal = beta;
+        long entry = transpositionTable.Probe(key);
+        hashProbes++;
+        if (entry != 0) {
+            hashHits++;
+        }
+        int hashMove = ply == 0 ? previousBestMove : MoveEncoding.NONE;
+        if (entry != 0) {
+            if (hashMove == MoveEncoding.NONE) {
+                hashMove = TranspositionTable.getMove(entry);
+            }
+            if (ply > 0 && beta - alpha <= 1 && TranspositionTable.getDepth(entry) >= searchDepth) {
+                double score = FromTableScore(TranspositionTable.getScore(entry), ply);
+                int bound = TranspositionTable.getBound(entry);
+                if (bound == TranspositionTable.EXACT) {
+                    return score;
+                } else if (bound == TranspositionTable.LOWER_BOUND) {
+                    alpha = Math.max(alpha, score);
+                } else {
+                    beta = Math.min(beta, score);
+                }
+                if (beta <= alpha) {
+                    return score;
+                }
+            }
         }
-        return children;
-    }
 
-    private double evaluateBranch(Board board, Colour maximizingColour) {
-        double branchValue = 0;
-        int[] pieceValues = {200, 9, 5, 3, 3, 1}; //todo can be edited later depending on difficulty
+        boolean inCheck = Game.isKingChecked(colourToMove, currentPosition);
+        boolean selective = ply > 0 && beta - alpha <= 1 && !inCheck;
+        boolean futile = false;
+        double futilityEvaluation = 0;
+        if (selective) {
+            double staticEvaluation = evaluateBranch(currentPosition, colourToMove);
 
-        if (game.isKingCheckmated(Colour.BLACK)) {
-            branchValue = Double.POSITIVE_INFINITY;
+            /*
+            Null-move pruning. If the side to move could pass and a shallower search still fails high, a real move
+            almost certainly would too. Passing is only worse than moving when moving is forced to lose (zugzwang),
+            which mostly happens with only the king and pawns left, so it is not tried then
+             */
+            if (allowNullMove && searchDepth >= NULL_MOVE_DEPTH && staticEvaluation >= beta && HasPiecesOtherThanPawns(currentPosition, colourToMove)) {
+                int reduction = searchDepth >= NULL_MOVE_DEEP_DEPTH ? NULL_MOVE_REDUCTION + 1 : NULL_MOVE_REDUCTION;
+                Game.MakeNullMove(currentPosition);
+                double nullEvaluation = -principalVariationSearch(currentPosition, Math.max(searchDepth - 1 - reduction, 0), -beta, -beta + 1, ply + 1, false);
+                Game.reverseNullMove(currentPosition);
+                if (stopped) {
+                    return 0;
+                }
+                if (nullEvaluation >= beta) {
+                    //A mate found after passing is not proven, so only the bound is returned
+                    return IsMateScore(nullEvaluation) ? beta : nullEvaluation;
+                }
+            }
 
-        } else if (game.isKingCheckmated(Colour.WHITE)) {
-            branchValue = Double.NEGATIVE_INFINITY;
+            if (searchDepth < FUTILITY_MARGINS.length && staticEvaluation + FUTILITY_MARGINS[searchDepth] <= alpha) {
+                futile = true;
+                futilityEvaluation = staticEvaluation + FUTILITY_MARGINS[searchDepth];
+            }
+        }
 
-        } else {
-            /*
-            Material Score (Including check, but not checkmate). This always returns
-            whites material score but will be made negative if black is the maximizer
-            */
-            branchValue += calculateMaterialScore(pieceValues);
+        int[] moves = MoveBuffers[ply];
+        int moveCount = getChildren(currentPosition, colourToMove, moves);
+        expandedNodes++;
+        moveOrdering.ScoreMoves(currentPosition, moves, moveCount, hashMove, ply);
+        int bestMove = MoveEncoding.NONE;
+        double bestEvaluation = Double.NEGATIVE_INFINITY;
 
-            //Mobility Score (Number of moves which can be made by each side * 0.05)
-            branchValue += calculateMobilityScore(board);
+        for (int i = 0; i < moveCount; i++) {
+            int currentNode = moveOrdering.NextMove(moves, moveCount, i, ply);
+            boolean quiet = !MoveEncoding.isCapture(currentNode) && !MoveEncoding.isPromotion(currentNode);
+            Game.MakeMove(currentNode, currentPosition);
+            boolean givesCheck = Game.isKingChecked(currentPosition.getSideToMove(), currentPosition);
 
-            //Position Score
-            branchValue += calculatePositionScore(board);
+            //A skipped move is counted as scoring the futility evaluation, which is at most alpha
+            if (futile && quiet && !givesCheck) {
+                Game.reverseMove(currentNode, currentPosition);
+                bestEvaluation = Math.max(bestEvaluation, futilityEvaluation);
+                continue;
+            }
+
+            double nodeEvaluation;
+            //A null window cannot be made below negative infinity, so until a move scores above it every move gets a full window
+            if (i == 0 || alpha == Double.NEGATIVE_INFINITY) {
+                nodeEvaluation = -principalVariationSearch(currentPosition, searchDepth - 1, -beta, -alpha, ply + 1, true);
+            } else {
+                //Late quiet moves are rarely best, so they are searched shallower and only searched again at full depth if they beat alpha
+                int reduction = 0;
+                if (quiet && !inCheck && !givesCheck && i >= LATE_MOVE_COUNT && searchDepth >= LATE_MOVE_DEPTH) {
+                    reduction = i >= 2 * LATE_MOVE_COUNT && searchDepth >= LATE_MOVE_DEEP_DEPTH ? 2 : 1;
+                }
+                nodeEvaluation = -principalVariationSearch(currentPosition, searchDepth - 1 - reduction, -alpha - 1, -alpha, ply + 1, true);
+                if (reduction > 0 && nodeEvaluation > alpha && !stopped) {
+                    nodeEvaluation = -principalVariationSearch(currentPosition, searchDepth - 1, -alpha - 1, -alpha, ply + 1, true);
+                }
+                if (nodeEvaluation > alpha && nodeEvaluation < beta && !stopped) {
+                    nodeEvaluation = -principalVariationSearch(currentPosition, searchDepth - 1, -beta, -alpha, ply + 1, true);
+                }
+            }
+            Game.reverseMove(currentNode, currentPosition);
+            if (stopped) {
+                return 0;
+            }
 
+            if (nodeEvaluation > bestEvaluation) {
+                bestEvaluation = nodeEvaluation;
+                bestMove = currentNode;
+                if (ply == 0) {
+                    currentBestMove = currentNode;
+                }
+            } else if (ply == 0 && currentBestMove == MoveEncoding.NONE) {
+                //Every move loses, but a legal move must still be played
+                currentBestMove = currentNode;
+            }
+            if (nodeEvaluation > alpha) {
+                UpdatePrincipalVariation(ply, currentNode);
+            }
+            alpha = Math.max(alpha, nodeEvaluation);
+            if (beta <= alpha) {
+                moveOrdering.RecordCutoff(currentPosition, currentNode, ply, searchDepth);
+                CountCutoff(i);
+                break;
+            }
+        }
+        if (moveCount == 0) {
+            bestEvaluation = TerminalEvaluation(currentPosition, colourToMove, true, ply);
         }
+        StoreNode(key, bestMove, bestEvaluation, searchDepth, alphaOriginal, betaOriginal, true, ply);
+        return bestEvaluation;
+    }
 
-        //Make evaluation positive or negative based on the maximisingColour
-        if (maximizingColour == Colour.BLACK) {
-            return ((100 * branchValue) * -1);
-        } else return (100 * branchValue);
+    /**
+     * A position in the search is scored as a draw if it repeats any earlier position, in the game or the search,
+     * rather than only the third time. If repeating was the best line once it will be again, and cutting the line off
+     * here saves searching it. The repetition check only goes back to the last capture or pawn move
+     *
+     * @param board The board being searched
+     * @return true if the position is a draw by repetition or the fifty-move rule
+     */
+    private static boolean IsDraw(Board board) {
+        return board.getHalfmoveClock() >= 100 || board.getRepetitionCount() > 0;
     }
 
-    private double calculatePositionScore(Board board) {
-        return 0;
+    /**
+     * @param board  The board being searched
+     * @param colour The colour to check
+     * @return true if that colour has a knight, bishop, rook or queen
+     */
+    private static boolean HasPiecesOtherThanPawns(Board board, Colour colour) {
+        return (board.getColourOccupancy(colour) & ~board.getPieceBitboard(colour, PieceType.PAWN)
+                & ~board.getPieceBitboard(colour, PieceType.KING)) != 0;
     }
 
     /**
-     * Calculates a value based on whites current position, higher values map to a stronger position/advantage whereas lower values
-     * map to a weaker position/disadvantage for white.
+     * Evaluates a node where the side to move has no legal moves
      *
-     * @param pieceValues The values to assign each piece in pawns, eg - a queen is worth 9 pawns etc.
-     * @return a double value of the material score. Value will be negative if black is winning and positive if white is winning
+     * @param currentPosition The board being searched
+     * @param colourToMove    The colour of the side to move
+     * @param maximizer       True if the maximizing colour is to move
+     * @param ply             The number of moves made since the root
+     * @return MATE less the ply, negative if the maximizer is checkmated, and 0 for a stalemate (a draw)
      */
-    private double calculateMaterialScore(int[] pieceValues) {
-        double materialScore = 0;
-        PieceType[] pieceValueReference = {PieceType.KING, PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT, PieceType.PAWN};
+    private static double TerminalEvaluation(Board currentPosition, Colour colourToMove, boolean maximizer, int ply) {
+        if (Game.isKingChecked(colourToMove, currentPosition)) {
+            return maximizer ? -(MATE - ply) : MATE - ply;
+        }
+        return 0;
+    }
 
-        //Gets material score for all pieces which aren't kings
-        for (int index = 1; index <= 5; index++) {
-            int noOfWhitePiecesOfType = 0;
-            int noOfBlackPiecesOfType = 0;
+    /**
+     * @param score A score in centipawns
+     * @return true if the score is a forced mate for either side
+     */
+    private static boolean IsMateScore(double score) {
+        return Math.abs(score) >= MATE - MAX_PLY;
+    }
+
+    /*
+    Mate scores are relative to the root, but the same position can be reached at different plies. The table stores
+    them relative to the node instead (the plies from the node to the mate), and converts them back when they are read
+     */
+    private static double ToTableScore(double score, int ply) {
+        if (IsMateScore(score)) {
+            return score > 0 ? score + ply : score - ply;
+        }
+        return score;
+    }
 
-            //Finds the amount of pieces of that type a colour has. Eg - white may have 5 pawns left.
-            for (Piece piece : game.getBoard().getWhitePieces()) {
-                if (piece.getType() == pieceValueReference[index]) {
-                    noOfWhitePiecesOfType++;
+    private static double FromTableScore(double score, int ply) {
+        if (IsMateScore(score)) {
+            return score > 0 ? score - ply : score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * Searches captures and promotions at the leaves of the main search until the position is quiet, so a leaf
+     * is not evaluated half way through an exchange. The side to move can stand pat (take the static evaluation)
+     * instead of capturing, and captures which cannot raise the score enough are skipped (delta pruning).
+     * A side in check cannot stand pat, so all of its moves out of check are searched instead.
+     *
+     * @param currentPosition  The board being searched
+     * @param alpha            The best score the maximizer is already guaranteed
+     * @param beta             The best score the minimizer is already guaranteed
+     * @param maximizer        True if the maximizing colour is to move
+     * @param maximizingColour The colour the search is finding a move for
+     * @param ply              The number of moves made since the root, which selects the move buffer
+     * @return the evaluation of the position from the maximizing colours point of view
+     */
+    private double quiescence(Board currentPosition, double alpha, double beta, boolean maximizer, Colour maximizingColour, int ply) {
+        nodes++;
+        selectiveDepth = Math.max(selectiveDepth, ply);
+        if (stopped || CheckLimits()) {
+            return 0;
+        }
+        Colour colourToMove = maximizer ? maximizingColour : Colour.GetOtherColour(maximizingColour);
+        if (ply == MAX_PLY) {
+            return evaluateBranch(currentPosition, maximizingColour);
+        }
+
+        //In check there is no standing pat, every move out of check is searched and having none is checkmate
+        boolean inCheck = Game.isKingChecked(colourToMove, currentPosition);
+        double standPat = 0;
+        if (!inCheck) {
+            standPat = evaluateBranch(currentPosition, maximizingColour);
+            if (maximizer) {
+                if (standPat >= beta) {
+                    return standPat;
+                }
+                alpha = Math.max(alpha, standPat);
+            } else {
+                if (standPat <= alpha) {
+                    return standPat;
                 }
+                beta = Math.min(beta, standPat);
             }
-            for (Piece piece : game.getBoard().getBlackPieces()) {
-                if (piece.getType() == pieceValueReference[index]) {
-                    noOfBlackPiecesOfType++;
+        }
+
+        int[] moves = MoveBuffers[ply];
+        int moveCount = inCheck ? getChildren(currentPosition, colourToMove, moves)
+                : MoveGenerator.GenerateLegalCaptures(currentPosition, colourToMove, moves);
+        if (inCheck && moveCount == 0) {
+            return TerminalEvaluation(currentPosition, colourToMove, maximizer, ply);
+        }
+        double bestEvaluation = inCheck ? (maximizer ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY) : standPat;
+
+        //Captures are tried by MVV-LVA, so cutoffs are found before weaker captures are searched
+        moveOrdering.ScoreMoves(currentPosition, moves, moveCount, MoveEncoding.NONE, ply);
+        for (int i = 0; i < moveCount; i++) {
+            int currentNode = moveOrdering.NextMove(moves, moveCount, i, ply);
+            if (!inCheck) {
+                double gain = 100 * (CaptureGain(currentNode, currentPosition) + DELTA_MARGIN);
+                if (maximizer ? standPat + gain <= alpha : standPat - gain >= beta) {
+                    continue;
+                }
+                //A capture which loses material is almost never better than standing pat
+                if (moveOrdering.isLosingCapture(currentNode, currentPosition)) {
+                    continue;
                 }
             }
-//            System.out.println("No. of black " + pieceValueReference[index] + "'s = " + noOfBlackPiecesOfType);
-//            System.out.println("No. of white " + pieceValueReference[index] + "'s = " + noOfWhitePiecesOfType);
+            Game.MakeMove(currentNode, currentPosition);
+            double nodeEvaluation = quiescence(currentPosition, alpha, beta, !maximizer, maximizingColour, ply + 1);
+            Game.reverseMove(currentNode, currentPosition);
+            if (stopped) {
+                return 0;
+            }
 
-            materialScore += pieceValues[index] * (noOfWhitePiecesOfType - noOfBlackPiecesOfType);
+            if (maximizer) {
+                bestEvaluation = Math.max(bestEvaluation, nodeEvaluation);
+                alpha = Math.max(alpha, nodeEvaluation);
+            } else {
+                bestEvaluation = Math.min(bestEvaluation, nodeEvaluation);
+                beta = Math.min(beta, nodeEvaluation);
+            }
+            if (beta <= alpha) {
+                break;
+            }
         }
+        return bestEvaluation;
+    }
 
-        //Material score for kings and check
-        int whiteChecked = 0, blackChecked = 0;
-        if (Game.isKingChecked(Colour.WHITE, game.getBoard())) {
-            whiteChecked++;
-        } else if (Game.isKingChecked(Colour.BLACK, game.getBoard())) {
-            blackChecked++;
+    /**
+     * The quiescence search of principalVariationSearch, from the side to move's point of view
+     *
+     * @param currentPosition The board being searched
+     * @param alpha           The best score the side to move is already guaranteed
+     * @param beta            The best score the opponent is already guaranteed
+     * @param ply             The number of moves made since the root, which selects the move buffer
+     * @return the evaluation of the position from the side to moves point of view
+     */
+    private double negamaxQuiescence(Board currentPosition, double alpha, double beta, int ply) {
+        nodes++;
+        selectiveDepth = Math.max(selectiveDepth, ply);
+        if (stopped || CheckLimits()) {
+            return 0;
+        }
+        Colour colourToMove = currentPosition.getSideToMove();
+        if (ply == MAX_PLY) {
+            return evaluateBranch(currentPosition, colourToMove);
         }
-        materialScore += pieceValues[0] * (blackChecked - whiteChecked);
 
-        //System.out.println("material score: " + materialScore);
+        //In check there is no standing pat, every move out of check is searched and having none is checkmate
+        boolean inCheck = Game.isKingChecked(colourToMove, currentPosition);
+        double standPat = 0;
+        if (!inCheck) {
+            standPat = evaluateBranch(currentPosition, colourToMove);
+            if (standPat >= beta) {
+                return standPat;
+            }
+            alpha = Math.max(alpha, standPat);
+        }
 
-        //todo Decrease score based on whether doubled, blocked or isolated pawns are present.
+        int[] moves = MoveBuffers[ply];
+        int moveCount = inCheck ? getChildren(currentPosition, colourToMove, moves)
+                : MoveGenerator.GenerateLegalCaptures(currentPosition, colourToMove, moves);
+        if (inCheck && moveCount == 0) {
+            return TerminalEvaluation(currentPosition, colourToMove, true, ply);
+        }
+        double bestEvaluation = inCheck ? Double.NEGATIVE_INFINITY : standPat;
 
-        return materialScore;
+        moveOrdering.ScoreMoves(currentPosition, moves, moveCount, MoveEncoding.NONE, ply);
+        for (int i = 0; i < moveCount; i++) {
+            int currentNode = moveOrdering.NextMove(moves, moveCount, i, ply);
+            if (!inCheck && (standPat + 100 * (CaptureGain(currentNode, currentPosition) + DELTA_MARGIN) <= alpha
+                    || moveOrdering.isLosingCapture(currentNode, currentPosition))) {
+                continue;
+            }
+            Game.MakeMove(currentNode, currentPosition);
+            double nodeEvaluation = -negamaxQuiescence(currentPosition, -beta, -alpha, ply + 1);
+            Game.reverseMove(currentNode, currentPosition);
+            if (stopped) {
+                return 0;
+            }
+
+            bestEvaluation = Math.max(bestEvaluation, nodeEvaluation);
+            alpha = Math.max(alpha, nodeEvaluation);
+            if (beta <= alpha) {
+                break;
+            }
+        }
+        return bestEvaluation;
+    }
+
+    /**
+     * @param move  An encoded capture or promotion
+     * @param board The board before the move is made
+     * @return the material the move wins in pawns, the captured piece plus the gain from promoting
+     */
+    private static int CaptureGain(int move, Board board) {
+        int gain = 0;
+        if (MoveEncoding.getFlags(move) == MoveEncoding.EN_PASSANT) {
+            gain = PIECE_VALUES[PieceType.PAWN.ordinal()];
+        } else if (MoveEncoding.isCapture(move)) {
+            gain = PIECE_VALUES[board.getPieceAt(MoveEncoding.getDestination(move)).getType().ordinal()];
+        }
+        if (MoveEncoding.isPromotion(move)) {
+            gain += PIECE_VALUES[MoveEncoding.getPromotionType(move).ordinal()] - PIECE_VALUES[PieceType.PAWN.ordinal()];
+        }
+        return gain;
+    }
+
+    /**
+     * Stores a searched node in the transposition table. The bound type comes from comparing the
+     * score with the alpha-beta window the node was searched with
+     *
+     * @param key         The Zobrist key of the position
+     * @param bestMove    The best move found, or MoveEncoding.NONE
+     * @param evaluation  The score of the node from the maximizing colours point of view
+     * @param searchDepth The depth the node was searched to
+     * @param alpha       Alpha when the node was entered
+     * @param beta        Beta when the node was entered
+     * @param maximizer   True if the maximizing colour is to move
+     * @param ply         The number of moves made since the root, which mate scores are stored relative to
+     */
+    private void StoreNode(long key, int bestMove, double evaluation, int searchDepth, double alpha, double beta, boolean maximizer, int ply) {
+        int bound;
+        if (evaluation <= alpha) {
+            bound = TranspositionTable.UPPER_BOUND;
+        } else if (evaluation >= beta) {
+            bound = TranspositionTable.LOWER_BOUND;
+        } else {
+            bound = TranspositionTable.EXACT;
+        }
+        if (maximizer) {
+            transpositionTable.Store(key, bestMove, ToTableScore(evaluation, ply), searchDepth, bound);
+        } else {
+            transpositionTable.Store(key, bestMove, ToTableScore(-evaluation, ply), searchDepth, FlipBound(bound));
+        }
+    }
+
+    /**
+     * @param bound A transposition table bound type
+     * @return the bound type from the other sides point of view
+     */
+    private static int FlipBound(int bound) {
+        if (bound == TranspositionTable.LOWER_BOUND) {
+            return TranspositionTable.UPPER_BOUND;
+        } else if (bound == TranspositionTable.UPPER_BOUND) {
+            return TranspositionTable.LOWER_BOUND;
+        }
+        return bound;
+    }
+
+    /**
+     * Writes the legal moves of one colour into a move buffer, so the searches never need to test a move's legality
+     *
+     * @param board  The board being searched
+     * @param colour The colour to generate moves for
+     * @param moves  The buffer to write the encoded moves to
+     * @return the number of moves written
+     */
+    private int getChildren(Board board, Colour colour, int[] moves) {
+        return MoveGenerator.GenerateLegalMoves(board, colour, moves);
+    }
+
+    /**
+     * Statically evaluates a position without searching it
+     *
+     * @param board            The board to evaluate
+     * @param maximizingColour The colour the evaluation is from the point of view of
+     * @return the evaluation in whole centipawns, positive when the maximizing colour is better. It is rounded so
+     * the null windows of principalVariationSearch, one centipawn wide, can be searched without skipping any score
+     */
+    public double evaluateBranch(Board board, Colour maximizingColour) {
+        /*
+        Checkmate and stalemate are not found here, the search finds them when a node has no legal moves.
+        This keeps the evaluation cheap enough to use at every quiescence node
+         */
+        double branchValue = 0;
+
+        /*
+        Material and Position Score, kept up to date by the board as moves are made. This is always
+        whites score but will be made negative if black is the maximizer
+        */
+        branchValue += board.getTaperedScore() / 100.0;
+
+        //Check Score
+        branchValue += calculateCheckScore(board);
+
+        //Mobility Score (Number of safe squares attacked by each sides pieces * 0.05)
+        branchValue += calculateMobilityScore(board);
+
+        //Make evaluation positive or negative based on the maximisingColour
+        long centipawns = Math.round(100 * branchValue);
+        if (maximizingColour == Colour.BLACK) {
+            return -centipawns;
+        } else return centipawns;
+    }
+
+    /**
+     * Calculates a value based on which king is in check, valued as CHECK_BONUS.
+     *
+     * @return a positive value if black is in check and a negative value if white is in check
+     */
+    private double calculateCheckScore(Board board) {
+        int whiteChecked = 0, blackChecked = 0;
+        if (Game.isKingChecked(Colour.WHITE, board)) {
+            whiteChecked++;
+        } else if (Game.isKingChecked(Colour.BLACK, board)) {
+            blackChecked++;
+        }
+        return CHECK_BONUS * (blackChecked - whiteChecked);
     }
 
     private double calculateMobilityScore(Board board) {
-        int whiteMobility = getChildren(board, true, Colour.WHITE).size();
-        int blackMobility = getChildren(board, true, Colour.BLACK).size();
+        int whiteMobility = Mobility.Count(board, Colour.WHITE);
+        int blackMobility = Mobility.Count(board, Colour.BLACK);
 
         //System.out.println("Black Mobility: " + blackMobility + ", White mobility: " + whiteMobility + ", Mobility Score = " + (0.05 * (whiteMobility - blackMobility)));
         //todo maybe decrease score based on trapped pieces / forks / skewers
@@ -226,9 +1034,32 @@ public final class Minimax {
         return 0.05 * (whiteMobility - blackMobility);
     }
 
-    //todo remove
+    /**
+     * @param usePrincipalVariationSearch True (the default) to search with negamax principal variation search and
+     *                                    aspiration windows, false to search with minimaxTraversal and a full window
+     */
+    public void setPrincipalVariationSearch(boolean usePrincipalVariationSearch) {
+        this.usePrincipalVariationSearch = usePrincipalVariationSearch;
+    }
+
+    /**
+     * @param listener The listener to call after each completed iteration, or null for none
+     */
+    public void setSearchListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @return the depth of the last iteration IterativeDeepening completed
+     */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
     public Move getCurrentBestMove() {
-        System.out.println("Temp = " + temp);
-        return currentBestMove;
+        if (currentBestMove == MoveEncoding.NONE) {
+            return null;
+        }
+        return MoveEncoding.ToMove(currentBestMove, game.getBoard());
     }
 }
@@ -0,0 +1,209 @@
+package Game.Move;
+
+import Game.Board.Bitboards;
+import Game.Board.Board;
+import Game.Board.Square;
+import Game.CastlingAvailability;
+import Game.Colour;
+import Game.Piece.Piece;
+import Game.Piece.PieceType;
+
+/**
+ * Packs a move into the low 16 bits of an int so the search can store moves in int arrays instead of creating Move objects.
+ * Bits 0-5 hold the origin square index, bits 6-11 the destination square index and bits 12-15 the move flags.
+ * The Move classes are still used by the GUI and for notation, ToMove and FromMove convert between the two.
+ */
+public final class MoveEncoding {
+
+    /**
+     * An empty move. a1 to a1 can never be a real move
+     */
+    public static final int NONE = 0;
+
+    //Move flags
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;
+    public static final int PROMOTION_CAPTURE = 12;
+
+    //Promotion piece, added to PROMOTION or PROMOTION_CAPTURE
+    public static final int PROMOTE_KNIGHT = 0;
+    public static final int PROMOTE_BISHOP = 1;
+    public static final int PROMOTE_ROOK = 2;
+    public static final int PROMOTE_QUEEN = 3;
+
+    private static final PieceType[] PROMOTION_TYPES = {PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK, PieceType.QUEEN};
+
+    private MoveEncoding() {
+    }
+
+    /**
+     * @param origin      The origin square index (0-63)
+     * @param destination The destination square index (0-63)
+     * @param flags       The move flags
+     * @return the encoded move
+     */
+    public static int Encode(int origin, int destination, int flags) {
+        return origin | (destination << 6) | (flags << 12);
+    }
+
+    /**
+     * @param move An encoded move
+     * @return the origin square index
+     */
+    public static int getOrigin(int move) {
+        return move & 0x3F;
+    }
+
+    /**
+     * @param move An encoded move
+     * @return the destination square index
+     */
+    public static int getDestination(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    /**
+     * @param move An encoded move
+     * @return the move flags
+     */
+    public static int getFlags(int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    /**
+     * @param move An encoded move
+     * @return true if a piece is captured, including en passant and promotion captures
+     */
+    public static boolean isCapture(int move) {
+        return (getFlags(move) & CAPTURE) != 0;
+    }
+
+    /**
+     * @param move An encoded move
+     * @return true if a pawn is promoted
+     */
+    public static boolean isPromotion(int move) {
+        return (getFlags(move) & PROMOTION) != 0;
+    }
+
+    /**
+     * @param move An encoded move
+     * @return true for a king-side or queen-side castle
+     */
+    public static boolean isCastle(int move) {
+        int flags = getFlags(move);
+        return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+    }
+
+    /**
+     * @param move An encoded promotion move
+     * @return the type of piece the pawn is promoted to
+     */
+    public static PieceType getPromotionType(int move) {
+        return PROMOTION_TYPES[getFlags(move) & 3];
+    }
+
+    /**
+     * Converts a move to long algebraic notation, eg - e2e4 or e7e8q
+     *
+     * @param move An encoded move
+     * @return a String of the move
+     */
+    public static String ToNotation(int move) {
+        int origin = getOrigin(move);
+        int destination = getDestination(move);
+        String notation = "" + (char) ('a' + (origin & 7)) + (Bitboards.RankOf(origin))
+                + (char) ('a' + (destination & 7)) + (Bitboards.RankOf(destination));
+        if (isPromotion(move)) {
+            notation += "nbrq".charAt(getFlags(move) & 3);
+        }
+        return notation;
+    }
+
+    /**
+     * Converts a move object to its encoded form
+     *
+     * @param move A move object
+     * @return the encoded move
+     */
+    public static int FromMove(Move move) {
+        int origin = Bitboards.SquareIndex(move.getStartPosition().ReturnCoordinate());
+        int destination = Bitboards.SquareIndex(move.getEndPosition().ReturnCoordinate());
+
+        if (move instanceof Move.CastlingMove) {
+            return Encode(origin, destination,
+                    ((Move.CastlingMove) move).getCastleType() == CastlingAvailability.KING_SIDE ? KING_CASTLE : QUEEN_CASTLE);
+        } else if (move instanceof Move.EnPassantMove) {
+            return Encode(origin, destination, EN_PASSANT);
+        } else if (move instanceof Move.PawnPromotion) {
+            return Encode(origin, destination, PROMOTION | PromotionCode(((Move.PawnPromotion) move).getPromotionPiece().getType()));
+        } else if (move instanceof Move.PawnPromotionCapture) {
+            return Encode(origin, destination, PROMOTION_CAPTURE | PromotionCode(((Move.PawnPromotionCapture) move).getPromotionPiece().getType()));
+        } else if (move instanceof Move.CapturingMove) {
+            return Encode(origin, destination, CAPTURE);
+        } else if (move.getMovedPiece() != null && move.getMovedPiece().getType() == PieceType.PAWN && Math.abs(destination - origin) == 16) {
+            return Encode(origin, destination, DOUBLE_PAWN_PUSH);
+        }
+        return Encode(origin, destination, QUIET);
+    }
+
+    /**
+     * Converts an encoded move to a move object. The board must be in the position before the move is made.
+     *
+     * @param move  An encoded move
+     * @param board The board the move will be made on
+     * @return a move object for the GUI and notation
+     */
+    public static Move ToMove(int move, Board board) {
+        int origin = getOrigin(move);
+        int destination = getDestination(move);
+        int flags = getFlags(move);
+
+        Square[][] BoardArray = board.getBoardArray();
+        Square start = BoardArray[origin >>> 3][origin & 7];
+        Square end = BoardArray[destination >>> 3][destination & 7];
+        Colour colour = start.ReturnPiece().getColour();
+
+        if (flags == KING_CASTLE) {
+            return new Move.CastlingMove(start, end, BoardArray[origin >>> 3][7].ReturnPiece(),
+                    CastlingAvailability.KING_SIDE, BoardArray[origin >>> 3][5].ReturnCoordinate());
+        } else if (flags == QUEEN_CASTLE) {
+            return new Move.CastlingMove(start, end, BoardArray[origin >>> 3][0].ReturnPiece(),
+                    CastlingAvailability.QUEEN_SIDE, BoardArray[origin >>> 3][3].ReturnCoordinate());
+        } else if (flags == EN_PASSANT) {
+            Square captured = BoardArray[origin >>> 3][destination & 7];
+            return new Move.EnPassantMove(start, end, captured.ReturnPiece(), captured);
+        } else if (isPromotion(move)) {
+            Piece promotionPiece = Piece.CreatePiece(getPromotionType(move), end.ReturnCoordinate(), colour);
+            if (isCapture(move)) {
+                return new Move.PawnPromotionCapture(start, end, promotionPiece, end.ReturnPiece());
+            }
+            return new Move.PawnPromotion(start, end, promotionPiece);
+        } else if (flags == CAPTURE) {
+            return new Move.CapturingMove(start, end, end.ReturnPiece());
+        }
+        return new Move.RegularMove(start, end);
+    }
+
+    /**
+     * @param type The type of piece promoted to
+     * @return the promotion code added to the promotion flags
+     */
+    private static int PromotionCode(PieceType type) {
+        switch (type) {
+            case KNIGHT:
+                return PROMOTE_KNIGHT;
+            case BISHOP:
+                return PROMOTE_BISHOP;
+            case ROOK:
+                return PROMOTE_ROOK;
+            default:
+                return PROMOTE_QUEEN;
+        }
+    }
+}
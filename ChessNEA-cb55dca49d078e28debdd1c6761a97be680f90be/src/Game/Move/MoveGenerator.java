@@ -0,0 +1,267 @@
+package Game.Move;
+
+import Game.Board.Bitboards;
+import Game.Board.Board;
+import Game.Board.MagicBitboards;
+import Game.CastlingAvailability;
+import Game.Colour;
+import Game.Game;
+import Game.Piece.PieceType;
+import Game.Piece.Pieces.King;
+
+/**
+ * Generates encoded moves straight from the board's bitboards into an int array supplied by the caller,
+ * so no objects are created while searching. Pseudo-legal moves are generated in the same way as
+ * Piece.CalculatePseudoLegalMoves, and must be checked with Game.isLegalMove before they are made.
+ * <p>
+ * Legal moves are generated directly. The pieces giving check, the pinned pieces and the squares the opponent
+ * attacks are found once for the position, then every destination is masked with them, so only enPassant
+ * captures need to be tested one at a time. Nothing on the board is changed, so generating is safe on a position
+ * which other threads are reading.
+ */
+public final class MoveGenerator {
+
+    /**
+     * No chess position has more than 218 legal moves, so a buffer of this size can hold any move list
+     */
+    public static final int MAX_MOVES = 256;
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Writes every pseudo-legal move for one colour into the move buffer
+     *
+     * @param board  The board to generate moves for
+     * @param colour The colour of the side to move
+     * @param moves  The buffer the encoded moves are written to, which must hold at least MAX_MOVES moves
+     * @return the number of moves written
+     */
+    public static int GeneratePseudoLegalMoves(Board board, Colour colour, int[] moves) {
+        return Generate(board, colour, moves, false, false);
+    }
+
+    /**
+     * Writes every legal move for one colour into the move buffer
+     *
+     * @param board  The board to generate moves for
+     * @param colour The colour of the side to move
+     * @param moves  The buffer the encoded moves are written to, which must hold at least MAX_MOVES moves
+     * @return the number of moves written, which is 0 for checkmate or stalemate
+     */
+    public static int GenerateLegalMoves(Board board, Colour colour, int[] moves) {
+        return Generate(board, colour, moves, false, true);
+    }
+
+    /**
+     * Writes the legal captures (including enPassant) and queen promotions for one colour into the move buffer.
+     * Used by the quiescence search, so quiet moves, castling and under-promotions are left out
+     *
+     * @param board  The board to generate moves for
+     * @param colour The colour of the side to move
+     * @param moves  The buffer the encoded moves are written to, which must hold at least MAX_MOVES moves
+     * @return the number of moves written
+     */
+    public static int GenerateLegalCaptures(Board board, Colour colour, int[] moves) {
+        return Generate(board, colour, moves, true, true);
+    }
+
+    /**
+     * @param capturesOnly If true only captures and queen promotions are generated
+     * @param legal        If true only legal moves are generated
+     * @return the number of moves written
+     */
+    private static int Generate(Board board, Colour colour, int[] moves, boolean capturesOnly, boolean legal) {
+        Colour opponent = Colour.GetOtherColour(colour);
+        long occupied = board.getOccupied();
+        long enemies = board.getColourOccupancy(opponent) & ~board.getPieceBitboard(opponent, PieceType.KING);
+        int kingSquare = board.getKingSquare(colour);
+
+        //Squares which can be moved to, every square except those holding our own pieces or a king
+        long targets = capturesOnly ? enemies : ~board.getColourOccupancy(colour) & ~board.getPieceBitboard(opponent, PieceType.KING);
+
+        /*
+        For legal moves: pieces other than the king must move onto the checkMask (capturing the checking piece
+        or blocking its line) and pinned pieces must stay on the line through their king. The king cannot move to
+        a square the opponent attacks, found with the king taken off the board so it cannot hide behind itself
+         */
+        long checkMask = ~0L;
+        long pinned = 0;
+        long kingTargets = Bitboards.KING_ATTACKS[kingSquare] & targets;
+        boolean inCheck = false;
+        if (legal) {
+            long checkers = Game.getCheckers(colour, board);
+            inCheck = checkers != 0;
+            kingTargets &= ~Game.getAttackedSquares(opponent, occupied ^ Bitboards.SquareMask(kingSquare), board);
+            if ((checkers & (checkers - 1)) != 0) {
+                //In double check only the king can move
+                return AddMoves(moves, 0, kingSquare, kingTargets, enemies);
+            }
+            if (inCheck) {
+                checkMask = checkers | Bitboards.BETWEEN[kingSquare][Long.numberOfTrailingZeros(checkers)];
+            }
+            pinned = Game.getPinnedPieces(colour, board);
+        }
+
+        int count = GeneratePawnMoves(board, colour, moves, 0, occupied, enemies, capturesOnly, legal, checkMask, pinned);
+
+        long knights = board.getPieceBitboard(colour, PieceType.KNIGHT);
+        while (knights != 0) {
+            int origin = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            //A pinned knight can never stay on its pin line
+            if ((pinned & Bitboards.SquareMask(origin)) == 0) {
+                count = AddMoves(moves, count, origin, Bitboards.KNIGHT_ATTACKS[origin] & targets & checkMask, enemies);
+            }
+        }
+
+        long bishops = board.getPieceBitboard(colour, PieceType.BISHOP);
+        while (bishops != 0) {
+            int origin = Long.numberOfTrailingZeros(bishops);
+            bishops &= bishops - 1;
+            long destinations = MagicBitboards.getBishopAttacks(origin, occupied) & targets & checkMask;
+            count = AddMoves(moves, count, origin, PinMask(destinations, origin, kingSquare, pinned), enemies);
+        }
+
+        long rooks = board.getPieceBitboard(colour, PieceType.ROOK);
+        while (rooks != 0) {
+            int origin = Long.numberOfTrailingZeros(rooks);
+            rooks &= rooks - 1;
+            long destinations = MagicBitboards.getRookAttacks(origin, occupied) & targets & checkMask;
+            count = AddMoves(moves, count, origin, PinMask(destinations, origin, kingSquare, pinned), enemies);
+        }
+
+        long queens = board.getPieceBitboard(colour, PieceType.QUEEN);
+        while (queens != 0) {
+            int origin = Long.numberOfTrailingZeros(queens);
+            queens &= queens - 1;
+            long destinations = MagicBitboards.getQueenAttacks(origin, occupied) & targets & checkMask;
+            count = AddMoves(moves, count, origin, PinMask(destinations, origin, kingSquare, pinned), enemies);
+        }
+
+        count = AddMoves(moves, count, kingSquare, kingTargets, enemies);
+        if (capturesOnly || inCheck) {
+            return count;
+        }
+
+        //Castling is only generated when it is fully legal
+        King king = (King) board.getKings()[colour.ordinal()];
+        if (king.canCastle(board, CastlingAvailability.KING_SIDE)) {
+            moves[count++] = MoveEncoding.Encode(kingSquare, kingSquare + 2, MoveEncoding.KING_CASTLE);
+        }
+        if (king.canCastle(board, CastlingAvailability.QUEEN_SIDE)) {
+            moves[count++] = MoveEncoding.Encode(kingSquare, kingSquare - 2, MoveEncoding.QUEEN_CASTLE);
+        }
+
+        return count;
+    }
+
+    /**
+     * Writes the pawn pushes, captures, promotions and enPassant captures for one colour
+     *
+     * @return the new number of moves in the buffer
+     */
+    private static int GeneratePawnMoves(Board board, Colour colour, int[] moves, int count, long occupied, long enemies,
+                                         boolean capturesOnly, boolean legal, long checkMask, long pinned) {
+        int kingSquare = board.getKingSquare(colour);
+        int side = colour.ordinal();
+        int startRank = colour == Colour.WHITE ? 2 : 7;
+        int enPassantSquare = board.getEnPassantPawn() != null && board.getEnPassantPawn().getColour() != colour
+                ? board.getEnPassantSquare() : -1;
+
+        long pawns = board.getPieceBitboard(colour, PieceType.PAWN);
+        while (pawns != 0) {
+            int origin = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long allowed = PinMask(checkMask, origin, kingSquare, pinned);
+
+            //Single push, and a double push from the starting rank if both squares are empty
+            long push = Bitboards.PAWN_PUSHES[side][origin] & ~occupied;
+            if (capturesOnly) {
+                //Only pushes which promote
+                push &= Bitboards.RANK_1 | Bitboards.RANK_8;
+            }
+            if (push != 0) {
+                int destination = Long.numberOfTrailingZeros(push);
+                if ((push & allowed) != 0) {
+                    count = AddPawnMove(moves, count, origin, destination, false, capturesOnly);
+                }
+
+                //The double push can block a check even when the single push cannot
+                if (!capturesOnly && Bitboards.RankOf(origin) == startRank) {
+                    long doublePush = Bitboards.PAWN_PUSHES[side][destination] & ~occupied & allowed;
+                    if (doublePush != 0) {
+                        moves[count++] = MoveEncoding.Encode(origin, Long.numberOfTrailingZeros(doublePush), MoveEncoding.DOUBLE_PAWN_PUSH);
+                    }
+                }
+            }
+
+            long captures = Bitboards.PAWN_ATTACKS[side][origin] & enemies & allowed;
+            while (captures != 0) {
+                int destination = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                count = AddPawnMove(moves, count, origin, destination, true, capturesOnly);
+            }
+
+            if (enPassantSquare >= 0 && (Bitboards.PAWN_ATTACKS[side][origin] & Bitboards.SquareMask(enPassantSquare)) != 0) {
+                //enPassant removes two pawns from one rank, which the masks cannot describe, so it is tested by itself
+                int move = MoveEncoding.Encode(origin, enPassantSquare, MoveEncoding.EN_PASSANT);
+                if (!legal || Game.isLegalMove(move, board)) {
+                    moves[count++] = move;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param destinations The squares a piece can move to
+     * @param origin       The square the piece is on
+     * @param kingSquare   The square of the pieces king
+     * @param pinned       The pinned pieces
+     * @return the destinations, limited to the pin line if the piece is pinned
+     */
+    private static long PinMask(long destinations, int origin, int kingSquare, long pinned) {
+        if ((pinned & Bitboards.SquareMask(origin)) != 0) {
+            return destinations & Bitboards.LINE[kingSquare][origin];
+        }
+        return destinations;
+    }
+
+    /**
+     * Writes a pawn move, or the promotions if the pawn reaches the last rank
+     *
+     * @param queenOnly If true only the queen promotion is written
+     * @return the new number of moves in the buffer
+     */
+    private static int AddPawnMove(int[] moves, int count, int origin, int destination, boolean capture, boolean queenOnly) {
+        if (destination < 8 || destination > 55) {
+            int flags = capture ? MoveEncoding.PROMOTION_CAPTURE : MoveEncoding.PROMOTION;
+            moves[count++] = MoveEncoding.Encode(origin, destination, flags | MoveEncoding.PROMOTE_QUEEN);
+            if (queenOnly) {
+                return count;
+            }
+            moves[count++] = MoveEncoding.Encode(origin, destination, flags | MoveEncoding.PROMOTE_ROOK);
+            moves[count++] = MoveEncoding.Encode(origin, destination, flags | MoveEncoding.PROMOTE_KNIGHT);
+            moves[count++] = MoveEncoding.Encode(origin, destination, flags | MoveEncoding.PROMOTE_BISHOP);
+        } else {
+            moves[count++] = MoveEncoding.Encode(origin, destination, capture ? MoveEncoding.CAPTURE : MoveEncoding.QUIET);
+        }
+        return count;
+    }
+
+    /**
+     * Writes a move from the origin to every destination in a bitboard
+     *
+     * @return the new number of moves in the buffer
+     */
+    private static int AddMoves(int[] moves, int count, int origin, long destinations, long enemies) {
+        while (destinations != 0) {
+            int destination = Long.numberOfTrailingZeros(destinations);
+            destinations &= destinations - 1;
+            int flags = (enemies & Bitboards.SquareMask(destination)) != 0 ? MoveEncoding.CAPTURE : MoveEncoding.QUIET;
+            moves[count++] = MoveEncoding.Encode(origin, destination, flags);
+        }
+        return count;
+    }
+}
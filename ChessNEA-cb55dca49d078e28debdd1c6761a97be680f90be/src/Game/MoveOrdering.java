@@ -0,0 +1,195 @@
+package Game;
+
+import Game.Board.Bitboards;
+import Game.Board.Board;
+import Game.Move.MoveEncoding;
+import Game.Move.MoveGenerator;
+import Game.Piece.Piece;
+import Game.Piece.PieceType;
+
+import java.util.Arrays;
+
+/**
+ * Orders the moves of a node so alpha-beta finds cutoffs early. Moves are tried in this order:
+ * the hash move, captures and promotions by MVV-LVA (most valuable victim, least valuable attacker),
+ * the two killer moves of the ply, captures which lose material by static exchange evaluation,
+ * then the remaining quiet moves by their history score.
+ * <p>
+ * Killers are quiet moves which caused a cutoff at the same ply in another branch, and the history table counts
+ * how often a quiet move of a piece to a square caused a cutoff anywhere in the search. Each search thread needs
+ * its own ordering, since the killers and history are not shared.
+ */
+public final class MoveOrdering {
+
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 29;
+    private static final int FIRST_KILLER_SCORE = 1 << 28;
+    private static final int SECOND_KILLER_SCORE = FIRST_KILLER_SCORE - 1;
+
+    /**
+     * Losing captures go after the killers but before the quiet moves, whose history scores stay below HISTORY_LIMIT
+     */
+    private static final int LOSING_CAPTURE_SCORE = 1 << 21;
+
+    /**
+     * When a history score passes this every score is halved, so quiet moves always stay below the killers
+     */
+    private static final int HISTORY_LIMIT = 1 << 20;
+
+    /**
+     * Piece values for ordering captures, indexed by PieceType ordinal. The king only ever attacks,
+     * so it is the most valuable attacker
+     */
+    private static final int[] ORDERING_VALUES = {10, 9, 5, 3, 3, 1};
+
+    private final int[][] Scores;
+    private final int[][] Killers;
+    private final int[][] History = new int[12][64];
+    private final int[] ExchangeGains = new int[Game.EXCHANGE_BUFFER_SIZE];
+
+    /**
+     * @param maxPly The number of plies the search can reach
+     */
+    public MoveOrdering(int maxPly) {
+        Scores = new int[maxPly][MoveGenerator.MAX_MOVES];
+        Killers = new int[maxPly][2];
+    }
+
+    /**
+     * Prepares for a new search. The killers are cleared, and the history is halved so it still helps
+     * but newer cutoffs count for more
+     */
+    public void NewSearch() {
+        for (int[] killers : Killers) {
+            Arrays.fill(killers, MoveEncoding.NONE);
+        }
+        AgeHistory();
+    }
+
+    /**
+     * Scores every move of a node. The moves are then taken in order with NextMove
+     *
+     * @param board     The board before any of the moves are made
+     * @param moves     The encoded moves of the node
+     * @param moveCount The number of moves
+     * @param hashMove  The move to try first, or MoveEncoding.NONE
+     * @param ply       The ply of the node, which selects the score buffer and killers
+     */
+    public void ScoreMoves(Board board, int[] moves, int moveCount, int hashMove, int ply) {
+        int[] scores = Scores[ply];
+        int[] killers = Killers[ply];
+        for (int i = 0; i < moveCount; i++) {
+            int move = moves[i];
+            if (move == hashMove) {
+                scores[i] = HASH_MOVE_SCORE;
+            } else if (MoveEncoding.isCapture(move) || MoveEncoding.isPromotion(move)) {
+                scores[i] = (isLosingCapture(move, board) ? LOSING_CAPTURE_SCORE : CAPTURE_SCORE) + MvvLva(move, board);
+            } else if (move == killers[0]) {
+                scores[i] = FIRST_KILLER_SCORE;
+            } else if (move == killers[1]) {
+                scores[i] = SECOND_KILLER_SCORE;
+            } else {
+                scores[i] = History[HistoryIndex(move, board)][MoveEncoding.getDestination(move)];
+            }
+        }
+    }
+
+    /**
+     * Moves the highest scoring move not yet searched to the given index. Only a selection step is done for each move,
+     * since a cutoff usually comes before the whole list is searched
+     *
+     * @param moves     The encoded moves of the node, scored with ScoreMoves
+     * @param moveCount The number of moves
+     * @param index     The number of moves already searched
+     * @param ply       The ply of the node
+     * @return the next move to search
+     */
+    public int NextMove(int[] moves, int moveCount, int index, int ply) {
+        int[] scores = Scores[ply];
+        int bestIndex = index;
+        for (int i = index + 1; i < moveCount; i++) {
+            if (scores[i] > scores[bestIndex]) {
+                bestIndex = i;
+            }
+        }
+        int move = moves[bestIndex];
+        int score = scores[bestIndex];
+        moves[bestIndex] = moves[index];
+        scores[bestIndex] = scores[index];
+        moves[index] = move;
+        scores[index] = score;
+        return move;
+    }
+
+    /**
+     * Records a move which caused a beta cutoff. Captures and promotions are already ordered well by MVV-LVA,
+     * so only quiet moves become killers or gain history
+     *
+     * @param board       The board before the move is made
+     * @param move        The encoded move
+     * @param ply         The ply of the node
+     * @param searchDepth The remaining depth of the node, deeper cutoffs gain more history
+     */
+    public void RecordCutoff(Board board, int move, int ply, int searchDepth) {
+        if (MoveEncoding.isCapture(move) || MoveEncoding.isPromotion(move)) {
+            return;
+        }
+        int[] killers = Killers[ply];
+        if (killers[0] != move) {
+            killers[1] = killers[0];
+            killers[0] = move;
+        }
+
+        int[] history = History[HistoryIndex(move, board)];
+        int destination = MoveEncoding.getDestination(move);
+        history[destination] += searchDepth * searchDepth;
+        if (history[destination] > HISTORY_LIMIT) {
+            AgeHistory();
+        }
+    }
+
+    /**
+     * Game.isLosingCapture with this orderings exchange buffer, so it can be called on the searching thread without allocating
+     *
+     * @param move  An encoded capture or promotion for the side to move
+     * @param board The board before the move is made
+     * @return true if the move loses material by static exchange evaluation
+     */
+    public boolean isLosingCapture(int move, Board board) {
+        return Game.isLosingCapture(move, board, ExchangeGains);
+    }
+
+    private void AgeHistory() {
+        for (int[] history : History) {
+            for (int square = 0; square < 64; square++) {
+                history[square] >>= 1;
+            }
+        }
+    }
+
+    /**
+     * @return the index of the moving piece in the history table
+     */
+    private static int HistoryIndex(int move, Board board) {
+        Piece piece = board.getPieceAt(MoveEncoding.getOrigin(move));
+        return Bitboards.PieceIndex(piece.getColour(), piece.getType());
+    }
+
+    /**
+     * @return a score which is highest for capturing the most valuable piece with the least valuable piece.
+     * A promotion adds the value of the new piece, so under-promotions are tried last
+     */
+    private static int MvvLva(int move, Board board) {
+        int score = 0;
+        int attacker = board.getPieceAt(MoveEncoding.getOrigin(move)).getType().ordinal();
+        if (MoveEncoding.getFlags(move) == MoveEncoding.EN_PASSANT) {
+            score = ORDERING_VALUES[PieceType.PAWN.ordinal()] * 16;
+        } else if (MoveEncoding.isCapture(move)) {
+            score = ORDERING_VALUES[board.getPieceAt(MoveEncoding.getDestination(move)).getType().ordinal()] * 16;
+        }
+        if (MoveEncoding.isPromotion(move)) {
+            score += ORDERING_VALUES[MoveEncoding.getPromotionType(move).ordinal()] * 16;
+        }
+        return score - ORDERING_VALUES[attacker];
+    }
+}
@@ -0,0 +1,83 @@
+package Game;
+
+import Game.Board.Board;
+import Game.Move.MoveEncoding;
+import Game.Move.MoveGenerator;
+
+/**
+ * Performance test (perft) of the move generator. Counts every leaf node of the legal move tree to a fixed depth,
+ * which can be compared with the known counts for standard positions to check the move generator,
+ * and timed to measure how fast moves are generated, made and reversed.
+ * The legal moves are generated with MoveGenerator and made with the encoded move make/reverse, the same path as the search.
+ */
+public final class Perft {
+
+    private static final int MAX_DEPTH = 32;
+
+    private final Board board;
+    private final int[][] MoveBuffers = new int[MAX_DEPTH][MoveGenerator.MAX_MOVES];
+
+    /**
+     * @param board The board to count from, which is left unchanged after each count
+     */
+    public Perft(Board board) {
+        this.board = board;
+    }
+
+    /**
+     * @param depth The number of plies to count to
+     * @return the number of leaf nodes at that depth
+     */
+    public long Count(int depth) {
+        if (depth < 0 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Perft depth must be between 0 and " + MAX_DEPTH);
+        }
+        return Count(depth, 0);
+    }
+
+    /**
+     * Counts the leaf nodes below each root move and prints them, eg - e2e4: 9771, followed by the total.
+     * Comparing this with another engine shows which move has the wrong count
+     *
+     * @param depth The number of plies to count to, at least 1
+     * @return the total number of leaf nodes
+     */
+    public long Divide(int depth) {
+        if (depth < 1 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Perft divide depth must be between 1 and " + MAX_DEPTH);
+        }
+        int[] moves = MoveBuffers[0];
+        int moveCount = MoveGenerator.GenerateLegalMoves(board, board.getSideToMove(), moves);
+        long total = 0;
+        for (int i = 0; i < moveCount; i++) {
+            int move = moves[i];
+            Game.MakeMove(move, board);
+            long nodes = Count(depth - 1, 1);
+            Game.reverseMove(move, board);
+            System.out.println(MoveEncoding.ToNotation(move) + ": " + nodes);
+            total += nodes;
+        }
+        System.out.println("Nodes: " + total);
+        return total;
+    }
+
+    private long Count(int depth, int ply) {
+        if (depth == 0) {
+            return 1;
+        }
+        int[] moves = MoveBuffers[ply];
+        int moveCount = MoveGenerator.GenerateLegalMoves(board, board.getSideToMove(), moves);
+        //At the last ply the legal moves only need counting
+        if (depth == 1) {
+            return moveCount;
+        }
+        long nodes = 0;
+        for (int i = 0; i < moveCount; i++) {
+            int move = moves[i];
+            Game.MakeMove(move, board);
+            nodes += Count(depth - 1, ply + 1);
+            Game.reverseMove(move, board);
+        }
+        return nodes;
+    }
+}
@@ -7,8 +7,7 @@ import Game.Colour;
 import Game.Coordinate;
 import Game.Game;
 import Game.Move.Move;
-import Game.Piece.Pieces.King;
-import Game.Piece.Pieces.Pawn;
+import Game.Piece.Pieces.*;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -32,6 +31,31 @@ public abstract class Piece {
         this.type = type;
     }
 
+    /**
+     * Creates a new piece of the given type. Rooks created this way have no castling side
+     *
+     * @param type       The type of piece to create
+     * @param coordinate The coordinate of the new piece
+     * @param colour     The colour of the new piece
+     * @return the new piece object
+     */
+    public static Piece CreatePiece(PieceType type, Coordinate coordinate, Colour colour) {
+        switch (type) {
+            case KING:
+                return new King(coordinate, colour, type);
+            case QUEEN:
+                return new Queen(coordinate, colour, type);
+            case ROOK:
+                return new Rook(coordinate, colour, type, CastlingAvailability.NEITHER);
+            case BISHOP:
+                return new Bishop(coordinate, colour, type);
+            case KNIGHT:
+                return new Knight(coordinate, colour, type);
+            default:
+                return new Pawn(coordinate, colour, type);
+        }
+    }
+
     /**
      * Takes a board object and calculates the available moves of the current piece
      * Takes into account that check may be present on the board etc...
@@ -39,140 +63,86 @@ public abstract class Piece {
      * @param board An instance of the current board (which contains an array of squares)
      * @return a list of all available/legal moves (where move is a move object)
      */
-    public abstract List<Move> CalculateValidMoves(final Board board);
+    public List<Move> CalculateValidMoves(final Board board) {
+        return removeIllegalMoves(board, CalculatePseudoLegalMoves(board));
+    }
 
     /**
-     * Converts the type of piece to its Notation equivalent
+     * Takes a board object and calculates the pseudo-legal moves of the current piece.
+     * These follow the movement rules of the piece but may leave the king in check,
+     * so each move must be checked with Game.isLegalMove before it is made
      *
-     * @return a String with the type notation (e.g. Queen = Q)
+     * @param board An instance of the current board (which contains an array of squares)
+     * @return a list of all pseudo-legal moves (where move is a move object)
      */
-    public abstract String PieceTypeToNotation();
-
-    public abstract String ReturnPieceIcon();
+    public abstract List<Move> CalculatePseudoLegalMoves(final Board board);
 
     /**
-     * Checks to make sure all possible destinations can be accessed by checking if other pieces obstruct the path
-     * and removes them from the list possible destinations.
+     * Converts the type of piece to its Notation equivalent
      *
-     * @param OneDimensionalArray a one-dimensional section or row of the board array which contains the piece
-     * @return a list of squares excluding any squares behind any obstructing pieces
+     * @return a String with the type notation (e.g. Queen = Q)
      */
-    protected List<Square> CheckCollisions(List<Square> OneDimensionalArray) {
-        int PiecePositionIndex = 0;
-
-        //Find index of moving piece
-        for (int i = 0; i < OneDimensionalArray.size(); i++) {
-            Square square = OneDimensionalArray.get(i);
-            if (getPieceCoordinate().CompareCoordinates(square)) {
-                PiecePositionIndex = i;
-                break;
-            }
-        }
-
-        //Loop back to find the nearest path obstruction backwards
-        int BackIndex = -1;
-        for (int i = PiecePositionIndex; i >= 0; i--) {
-            Square square = OneDimensionalArray.get(i);
-            if (i == 0 && BackIndex == -1) {
-                BackIndex = i;
-            } else if (square.SquareOccupied() && i != PiecePositionIndex) {
-                BackIndex = i;
-                break;
-            }
-        }
-
-        //Loop through to find the nearest path obstruction Forwards
-        int FrontIndex = -1;
-        for (int i = PiecePositionIndex; i < OneDimensionalArray.size(); i++) {
-            Square square = OneDimensionalArray.get(i);
-            if (i == OneDimensionalArray.size() - 1 && FrontIndex == -1) {
-                FrontIndex = i;
-            } else if (square.SquareOccupied() && i != PiecePositionIndex) {
-                FrontIndex = i;
-                break;
-            }
-        }
+    public abstract String PieceTypeToNotation();
 
-        OneDimensionalArray = OneDimensionalArray.subList(BackIndex, FrontIndex + 1);
-        return OneDimensionalArray;
-    }
+    public abstract String ReturnPieceIcon();
 
     /**
-     * Remove Square that moving piece is occupying and squares which
-     * cannot be captured (because a piece of equal colour occupies it)
+     * Gets the squares this piece could move to or capture on, which is every square
+     * not occupied by a piece of the same colour or by either king
      *
-     * @param PossibleDestinations A list of possible destinations which also includes invalid moves such as
-     *                             destinations with a piece of the same colour
-     * @return a list of squares which contains only valid moves
+     * @param board An instance of the current board
+     * @return a bitboard of the squares which can be moved to
      */
-    protected List<Square> RemoveRemainingInvalidDestinations(List<Square> PossibleDestinations) {
-        List<Square> ToBeRemoved = new ArrayList<>();
-        for (Square square : PossibleDestinations) {
-            if (getPieceCoordinate().CompareCoordinates(square)) {
-                ToBeRemoved.add(square);
-            } else if (square.SquareOccupied()) {
-                if ((square.ReturnPiece().getColour() == getColour()) || (square.ReturnPiece() instanceof King)) {
-                    ToBeRemoved.add(square);
-                }
-            }
-        }
-        PossibleDestinations.removeAll(ToBeRemoved);
-        return PossibleDestinations;
+    protected long TargetSquares(final Board board) {
+        return ~board.getColourOccupancy(colour)
+                & ~board.getPieceBitboard(Colour.WHITE, PieceType.KING)
+                & ~board.getPieceBitboard(Colour.BLACK, PieceType.KING);
     }
 
     /**
-     * Takes the possible destinations a piece can move to and converts these to move objects
+     * Takes a bitboard of the destinations a piece can move to and converts these to move objects
      *
-     * @param PossibleDestinations a List of squares which are available for the piece to move to
-     * @param Board                a 2-Dimensional square array to represent the board
+     * @param PossibleDestinations a bitboard of the squares which are available for the piece to move to
+     * @param board                an instance of the current board
      * @return a List of valid moves
      */
-    protected List<Move> DestinationsToMoves(final List<Square> PossibleDestinations, final Square[][] Board) {
+    protected List<Move> DestinationsToMoves(long PossibleDestinations, final Board board) {
         List<Move> Moves = new ArrayList<>();
-        for (Square square : PossibleDestinations) {
-            if ((type == PieceType.KING) && (PieceCoordinate.getFile() - square.ReturnCoordinate().getFile() == 2)) {
-                //Queen-side Castle
-                int rank = colour == Colour.WHITE ? 0 : 7;
-                Moves.add(new Move.CastlingMove(PieceCoordinate.GetSquareAt(Board), square, Board[rank][0].ReturnPiece(),
-                        CastlingAvailability.QUEEN_SIDE, Board[rank][3].ReturnCoordinate()));
-            } else if ((type == PieceType.KING) && (PieceCoordinate.getFile() - square.ReturnCoordinate().getFile() == -2)) {
-                //King-side Castle
-                int rank = colour == Colour.WHITE ? 0 : 7;
-                Moves.add(new Move.CastlingMove(PieceCoordinate.GetSquareAt(Board), square, Board[rank][7].ReturnPiece(),
-                        CastlingAvailability.KING_SIDE, Board[rank][5].ReturnCoordinate()));
+        Square[][] BoardArray = board.getBoardArray();
+        Square Origin = BoardArray[PieceCoordinate.getRank() - 1][PieceCoordinate.getFile() - 1];
+
+        while (PossibleDestinations != 0) {
+            int destination = Long.numberOfTrailingZeros(PossibleDestinations);
+            PossibleDestinations &= PossibleDestinations - 1;
+            Square square = BoardArray[destination >>> 3][destination & 7];
+
+            if (square.SquareOccupied()) {
+                //Capturing move
+                Moves.add(new Move.CapturingMove(Origin, square, square.ReturnPiece()));
             } else {
-                if (square.SquareOccupied()) {
-                    //Capturing move
-                    Moves.add(new Move.CapturingMove(PieceCoordinate.GetSquareAt(Board), square, square.ReturnPiece()));
-                } else {
-                    //General move
-                    Moves.add(new Move.RegularMove(PieceCoordinate.GetSquareAt(Board), square));
-                }
+                //General move
+                Moves.add(new Move.RegularMove(Origin, square));
             }
         }
         return Moves;
     }
 
+    /**
+     * Removes the moves which would leave this pieces king in check. Each move is tested with Game.isLegalMove,
+     * which uses the checking and pinned pieces instead of making the move, so the board is never changed.
+     * The checking and pinned pieces are found once for all of the moves
+     *
+     * @param board An instance of the current board
+     * @param moves The pseudo-legal moves of this piece
+     * @return the same list with the illegal moves removed
+     */
     protected List<Move> removeIllegalMoves(Board board, List<Move> moves) {
-        List<Move> illegalMoves = new ArrayList<>();
-
-        if (!moves.isEmpty() && moves.get(0).getMovedPiece() != null) {
-            King king = (moves.get(0).getMovedPiece().getColour() == Colour.WHITE) ? (King) board.getKings()[0] : (King) board.getKings()[1];
-            final CastlingAvailability castlingAvailability = king.getCastlingAvailability();
-            final Pawn enPassantPawn = board.getEnPassantPawn();
-
-            for (Move move : moves) {
-                Game.MakeMove(move, board);
-                if (Game.isKingChecked(this.colour, board)) {
-                    Game.reverseMove(move, board, castlingAvailability, enPassantPawn);
-                    illegalMoves.add(move);
-
-                } else {
-                    Game.reverseMove(move, board, castlingAvailability, enPassantPawn);
-                }
-            }
-            moves.removeAll(illegalMoves);
+        if (moves.isEmpty()) {
+            return moves;
         }
+        long checkers = Game.getCheckers(colour, board);
+        long pinned = Game.getPinnedPieces(colour, board);
+        moves.removeIf(move -> !Game.isLegalMove(move, board, checkers, pinned));
         return moves;
     }
 
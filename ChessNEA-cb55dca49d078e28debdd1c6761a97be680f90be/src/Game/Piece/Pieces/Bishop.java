@@ -1,14 +1,14 @@
 package Game.Piece.Pieces;
 
+import Game.Board.Bitboards;
 import Game.Board.Board;
-import Game.Board.Square;
+import Game.Board.MagicBitboards;
 import Game.Colour;
 import Game.Coordinate;
 import Game.Move.Move;
 import Game.Piece.Piece;
 import Game.Piece.PieceType;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class Bishop extends Piece {
@@ -24,50 +24,21 @@ public class Bishop extends Piece {
     }
 
     /**
-     * Takes a board object and calculates the available bishop moves so that
-     * illegal moves cannot be made
-     * Takes into account that check may be present on the board etc..
+     * Takes a board object and calculates the pseudo-legal bishop moves. These follow the movement rules of the
+     * piece but may leave the king in check
      *
      * @param board An instance of the current board (which contains an array of squares)
-     * @return a list of all available/legal moves (where move is a move object)
+     * @return a list of all pseudo-legal moves (where move is a move object)
      */
     @Override
-    public List<Move> CalculateValidMoves(final Board board) {
-        //Find Diagonal moves
-        List<Square> PositiveDiagonal = new ArrayList<>();
-        List<Square> NegativeDiagonal = new ArrayList<>();
-        Square[][] BoardArray = board.getBoardArray();
+    public List<Move> CalculatePseudoLegalMoves(final Board board) {
+        int square = Bitboards.SquareIndex(getPieceCoordinate());
 
-        for (Square[] Row : BoardArray) {
-            for (Square square : Row) {
-                Coordinate Destination = square.ReturnCoordinate();
-                int XDisplacement = getPieceCoordinate().getFile() - Destination.getFile();
-                int YDisplacement = getPieceCoordinate().getRank() - Destination.getRank();
+        /*Diagonals come from the magic bitboard tables. Squares with a piece of the same colour
+        (or a king) cannot be moved to*/
+        long PossibleDestinations = MagicBitboards.getBishopAttacks(square, board.getOccupied()) & TargetSquares(board);
 
-                if ((XDisplacement != 0) && Math.abs(XDisplacement) == Math.abs(YDisplacement)) {
-                    if (YDisplacement / XDisplacement == 1) {
-                        PositiveDiagonal.add(square);
-                    } else if (YDisplacement / XDisplacement == -1) {
-                        NegativeDiagonal.add(square);
-                    }
-                } else if ((XDisplacement == 0) && (YDisplacement == 0)) {
-                    PositiveDiagonal.add(square);
-                    NegativeDiagonal.add(square);
-                }
-            }
-        }
-
-        PositiveDiagonal = CheckCollisions(PositiveDiagonal);
-        NegativeDiagonal = CheckCollisions(NegativeDiagonal);
-
-        List<Square> PossibleDestinations = PositiveDiagonal;
-        PossibleDestinations.addAll(NegativeDiagonal);
-        
-        /*Remove Square that moving piece is occupying and squares which
-        cannot be captured (because a piece of equal colour occupies it)*/
-        PossibleDestinations = RemoveRemainingInvalidDestinations(PossibleDestinations);
-
-        return removeIllegalMoves(board, DestinationsToMoves(PossibleDestinations, BoardArray));
+        return DestinationsToMoves(PossibleDestinations, board);
     }
 
     /**
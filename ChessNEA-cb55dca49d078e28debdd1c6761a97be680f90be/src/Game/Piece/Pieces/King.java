@@ -1,5 +1,6 @@
 package Game.Piece.Pieces;
 
+import Game.Board.Bitboards;
 import Game.Board.Board;
 import Game.Board.Square;
 import Game.CastlingAvailability;
@@ -10,7 +11,6 @@ import Game.Move.Move;
 import Game.Piece.Piece;
 import Game.Piece.PieceType;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class King extends Piece {
@@ -30,73 +30,75 @@ public class King extends Piece {
     }
 
     /**
-     * Takes a board object and calculates the available king moves so that
-     * illegal moves cannot be made
-     * Takes into account that check may be present on the board etc..
+     * Takes a board object and calculates the pseudo-legal king moves. These follow the movement rules of the
+     * piece but may leave the king in check
      *
      * @param board An instance of the current board (which contains an array of squares)
-     * @return a list of all available/legal moves (where move is a move object)
+     * @return a list of all pseudo-legal moves (where move is a move object)
      */
     @Override
-    public List<Move> CalculateValidMoves(Board board) {
-        Square[][] BoardArray = board.getBoardArray();
-        List<Square> PossibleDestinations = new ArrayList<>();
+    public List<Move> CalculatePseudoLegalMoves(Board board) {
+        int square = Bitboards.SquareIndex(getPieceCoordinate());
 
-        for (Square[] row : BoardArray) {
-            for (Square square : row) {
-                Coordinate Destination = square.ReturnCoordinate();
-                int XDisplacement = Math.abs(getPieceCoordinate().getFile() - Destination.getFile());
-                int YDisplacement = Math.abs(getPieceCoordinate().getRank() - Destination.getRank());
-    
-                /*Check if max displacement = 1 because a king
-                can move a maximum of 1 square away from origin in any direction*/
-                if (Math.max(XDisplacement, YDisplacement) == 1) {
-                    PossibleDestinations.add(square);
-                }
-            }
-        }
-    
-        /*Remove Square that moving piece is occupying and squares which
-        cannot be captured (because a piece of equal colour occupies it)*/
-        PossibleDestinations = RemoveRemainingInvalidDestinations(PossibleDestinations);
-        PossibleDestinations.removeIf(square -> Game.isThreatenedSquare(this.colour, square, board)); //Lambda Expression
+        /*King destinations come from the precomputed attack table. Squares with a piece of the same colour
+        (or a king) cannot be moved to*/
+        long PossibleDestinations = Bitboards.KING_ATTACKS[square] & TargetSquares(board);
 
-        //Castling
-        if (castlingAvailability == CastlingAvailability.QUEEN_SIDE || castlingAvailability == CastlingAvailability.BOTH) {
-            Square[][] boardArray = board.getBoardArray();
-            int rank = colour == Colour.WHITE ? 0 : 7;
-            if (boardArray[rank][0].SquareOccupied()) {
-                if (boardArray[rank][0].ReturnPiece() instanceof Rook
-                        && boardArray[rank][0].ReturnPiece().getColour() == colour
-                        && !boardArray[rank][1].SquareOccupied()
-                        && !boardArray[rank][2].SquareOccupied()
-                        && !boardArray[rank][3].SquareOccupied()
-                        && !Game.isKingChecked(colour, board)
-                        && !Game.isThreatenedSquare(colour, boardArray[rank][2], board)
-                        && !Game.isThreatenedSquare(colour, boardArray[rank][3], board)) {
+        List<Move> Moves = DestinationsToMoves(PossibleDestinations, board);
 
-                    PossibleDestinations.add(boardArray[rank][2]);
-                }
-            }
+        /*Castling is only generated when it is fully legal, since the squares the king
+        passes through must also be checked*/
+        int rank = colour == Colour.WHITE ? 1 : 8;
+        if (canCastle(board, CastlingAvailability.QUEEN_SIDE)) {
+            Square[][] boardArray = board.getBoardArray();
+            Moves.add(new Move.CastlingMove(boardArray[rank - 1][4], boardArray[rank - 1][2], boardArray[rank - 1][0].ReturnPiece(),
+                    CastlingAvailability.QUEEN_SIDE, boardArray[rank - 1][3].ReturnCoordinate()));
         }
-        if (castlingAvailability == CastlingAvailability.KING_SIDE || castlingAvailability == CastlingAvailability.BOTH) {
+        if (canCastle(board, CastlingAvailability.KING_SIDE)) {
             Square[][] boardArray = board.getBoardArray();
-            int rank = colour == Colour.WHITE ? 0 : 7;
-            if (boardArray[rank][7].SquareOccupied()) {
-                if (boardArray[rank][7].ReturnPiece() instanceof Rook
-                        && boardArray[rank][7].ReturnPiece().getColour() == colour
-                        && !boardArray[rank][6].SquareOccupied()
-                        && !boardArray[rank][5].SquareOccupied()
-                        && !Game.isKingChecked(colour, board)
-                        && !Game.isThreatenedSquare(colour, boardArray[rank][6], board)
-                        && !Game.isThreatenedSquare(colour, boardArray[rank][5], board)) {
-
-                    PossibleDestinations.add(boardArray[rank][6]);
-                }
-            }
+            Moves.add(new Move.CastlingMove(boardArray[rank - 1][4], boardArray[rank - 1][6], boardArray[rank - 1][7].ReturnPiece(),
+                    CastlingAvailability.KING_SIDE, boardArray[rank - 1][5].ReturnCoordinate()));
         }
 
-        return removeIllegalMoves(board, DestinationsToMoves(PossibleDestinations, BoardArray));
+        return Moves;
+    }
+
+    /**
+     * Checks that the king can castle on one side: the king still has that castling availability, the rook is in
+     * its corner, the squares between them are empty and the king does not start in, pass through or end in check
+     *
+     * @param board An instance of the current board
+     * @param side  KING_SIDE or QUEEN_SIDE
+     * @return true if castling on that side is legal
+     */
+    public boolean canCastle(Board board, CastlingAvailability side) {
+        if (castlingAvailability != side && castlingAvailability != CastlingAvailability.BOTH) {
+            return false;
+        }
+        int rank = colour == Colour.WHITE ? 1 : 8;
+        Piece rook;
+        long between;
+        int passedSquare, kingDestination;
+        if (side == CastlingAvailability.QUEEN_SIDE) {
+            rook = board.getPieceAt(Bitboards.SquareIndex(1, rank));
+            between = Bitboards.SquareMask(Bitboards.SquareIndex(2, rank))
+                    | Bitboards.SquareMask(Bitboards.SquareIndex(3, rank))
+                    | Bitboards.SquareMask(Bitboards.SquareIndex(4, rank));
+            passedSquare = Bitboards.SquareIndex(4, rank);
+            kingDestination = Bitboards.SquareIndex(3, rank);
+        } else {
+            rook = board.getPieceAt(Bitboards.SquareIndex(8, rank));
+            between = Bitboards.SquareMask(Bitboards.SquareIndex(6, rank))
+                    | Bitboards.SquareMask(Bitboards.SquareIndex(7, rank));
+            passedSquare = Bitboards.SquareIndex(6, rank);
+            kingDestination = Bitboards.SquareIndex(7, rank);
+        }
+        return rook instanceof Rook
+                && rook.getColour() == colour
+                && (board.getOccupied() & between) == 0
+                && !Game.isKingChecked(colour, board)
+                && !Game.isThreatenedSquare(colour, passedSquare, board)
+                && !Game.isThreatenedSquare(colour, kingDestination, board);
     }
 
     /**
@@ -1,14 +1,13 @@
 package Game.Piece.Pieces;
 
+import Game.Board.Bitboards;
 import Game.Board.Board;
-import Game.Board.Square;
 import Game.Colour;
 import Game.Coordinate;
 import Game.Move.Move;
 import Game.Piece.Piece;
 import Game.Piece.PieceType;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class Knight extends Piece {
@@ -24,39 +23,21 @@ public class Knight extends Piece {
     }
 
     /**
-     * Takes a board object and calculates the available Knight moves so that
-     * illegal moves cannot be made
-     * Takes into account that check may be present on the board etc...
+     * Takes a board object and calculates the pseudo-legal Knight moves. These follow the movement rules of the
+     * piece but may leave the king in check
      *
      * @param board An instance of the current board (which contains an array of squares)
-     * @return a list of all available/legal moves (where move is a move object)
+     * @return a list of all pseudo-legal moves (where move is a move object)
      */
     @Override
-    public List<Move> CalculateValidMoves(Board board) {
-        Square[][] BoardArray = board.getBoardArray();
-        List<Square> PossibleDestinations = new ArrayList<>();
+    public List<Move> CalculatePseudoLegalMoves(Board board) {
+        int square = Bitboards.SquareIndex(getPieceCoordinate());
 
-        for (Square[] Row : BoardArray) {
-            for (Square square : Row) {
-                Coordinate Destination = square.ReturnCoordinate();
-                int XDisplacement = Math.abs(getPieceCoordinate().getFile() - Destination.getFile());
-                int YDisplacement = Math.abs(getPieceCoordinate().getRank() - Destination.getRank());
-                
-                /*
-                The knight always moves two squares in one direction and then 1 square perpendicular, Therefore the
-                product of x and y displacements is always 1*2 = 2
-                */
-                if (XDisplacement * YDisplacement == 2) {
-                    PossibleDestinations.add(square);
-                }
-            }
-        }
-        
-        /*Remove Square that moving piece is occupying and squares which
-        cannot be captured (because a piece of equal colour occupies it)*/
-        PossibleDestinations = RemoveRemainingInvalidDestinations(PossibleDestinations);
+        /*Knight destinations come from the precomputed attack table. Squares with a piece of the same colour
+        (or a king) cannot be moved to*/
+        long PossibleDestinations = Bitboards.KNIGHT_ATTACKS[square] & TargetSquares(board);
 
-        return removeIllegalMoves(board, DestinationsToMoves(PossibleDestinations, BoardArray));
+        return DestinationsToMoves(PossibleDestinations, board);
     }
 
     /**
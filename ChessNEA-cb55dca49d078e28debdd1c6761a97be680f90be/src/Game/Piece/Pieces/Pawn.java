@@ -1,5 +1,6 @@
 package Game.Piece.Pieces;
 
+import Game.Board.Bitboards;
 import Game.Board.Board;
 import Game.Board.Square;
 import Game.CastlingAvailability;
@@ -25,164 +26,99 @@ public class Pawn extends Piece {
     }
 
     /**
-     * Takes a board object and calculates the available pawn moves so that
-     * illegal moves cannot be made
-     * Takes into account that check may be present on the board etc..
+     * Takes a board object and calculates the pseudo-legal pawn moves. These follow the movement rules of the
+     * piece but may leave the king in check
      *
      * @param board An instance of the current board (which contains an array of squares)
-     * @return a list of all available/legal moves (where move is a move object)
+     * @return a list of all pseudo-legal moves (where move is a move object)
      */
     @Override
-    public List<Move> CalculateValidMoves(Board board) {
-        Square[][] BoardArray = board.getBoardArray();
-        List<Square> PossibleDestinations = new ArrayList<>();
-
-        for (Square[] Row : BoardArray) {
-            for (Square square : Row) {
-                Coordinate Destination = square.ReturnCoordinate();
-                int XDisplacement = Math.abs(getPieceCoordinate().getFile() - Destination.getFile());
-                int YDisplacement = getPieceCoordinate().getRank() - Destination.getRank();
-                
-                /*
-                The pawn always moves two 1 in forwards, or diagonal when capturing, Therefore the
-                Y displacement is always 1 for white and -1 for black (because forward for white is backwards for black)
-                The absolute value of X Displacement is always <= 1,
-                because it can move a maximum of 1 square either side when capturing.
-                */
-                if (getColour() == Colour.WHITE) {
-                    if ((YDisplacement == -1) && (XDisplacement == 1)) {
-                        PossibleDestinations.add(square);
-                    } else if ((YDisplacement == -1) && (XDisplacement == 0)) {
-                        if (!square.SquareOccupied()) {
-                            PossibleDestinations.add(square);
-                        }
-                    } else if ((YDisplacement == -2) && (XDisplacement == 0)) {
-                        //A white pawn starts on Y = 2. Therefore if the square is not occupied and the pawn has not yet moved, they can move 2 spaces.
-                        if ((!square.SquareOccupied()) && (getPieceCoordinate().getRank() == 2)) {
-                            PossibleDestinations.add(square);
-                        }
-                    }
-                } else {
-                    if ((YDisplacement == 1) && (XDisplacement == 1)) {
-                        PossibleDestinations.add(square);
-                    } else if ((YDisplacement == 1) && (XDisplacement == 0)) {
-                        if (!square.SquareOccupied()) {
-                            PossibleDestinations.add(square);
-                        }
-                    } else if ((YDisplacement == 2) && (XDisplacement == 0)) {
-                        //A white pawn starts on Y = 2. Therefore if the square is not occupied and the pawn has not yet moved, they can move 2 spaces.
-                        if (!square.SquareOccupied() && getPieceCoordinate().getRank() == 7) {
-                            PossibleDestinations.add(square);
-                        }
-                    }
-                }
-            }
-        }
+    public List<Move> CalculatePseudoLegalMoves(Board board) {
+        int square = Bitboards.SquareIndex(getPieceCoordinate());
+        int side = colour.ordinal();
+        long empty = ~board.getOccupied();
 
-        PossibleDestinations = CheckDoubleMoveCollision(BoardArray, PossibleDestinations);
-        
         /*
-        Remove squares which cannot be
-        captured (because a piece of equal colour occupies it)
+        The pawn moves 1 square forwards onto an empty square. If it is still on its starting rank and
+        that square is empty it can move another square forwards (if that square is also empty)
         */
-        PossibleDestinations = RemoveRemainingInvalidDestinations(PossibleDestinations);
-        
-        /*
-        Remove diagonals if they are empty because a pawn can only move diagonal if they are capturing another piece
-         */
-        List<Square> toBeRemoved = new ArrayList<>();
-        for (Square square : PossibleDestinations) {
-            if (board.getEnPassantPawn() == null) {
-                if ((!square.SquareOccupied()) && getPieceCoordinate().getFile() != square.ReturnCoordinate().getFile()) {
-                    toBeRemoved.add(square);
-                }
-            } else {
-                if (!square.ReturnCoordinate().CompareCoordinates(board.getEnPassantDestination())) {
-                    if ((!square.SquareOccupied()) && getPieceCoordinate().getFile() != square.ReturnCoordinate().getFile()) {
-                        toBeRemoved.add(square);
-                    }
-                }
-            }
+        long PossibleDestinations = Bitboards.PAWN_PUSHES[side][square] & empty;
+        int startRank = colour == Colour.WHITE ? 2 : 7;
+        if (PossibleDestinations != 0 && getPieceCoordinate().getRank() == startRank) {
+            int singlePush = Long.numberOfTrailingZeros(PossibleDestinations);
+            PossibleDestinations |= Bitboards.PAWN_PUSHES[side][singlePush] & empty;
         }
 
-        PossibleDestinations.removeAll(toBeRemoved);
+        //Pawns only move diagonally when capturing an opposing piece (which cannot be a king)
+        long opponents = board.getColourOccupancy(Colour.GetOtherColour(colour));
+        PossibleDestinations |= Bitboards.PAWN_ATTACKS[side][square] & opponents & TargetSquares(board);
 
-        return removeIllegalMoves(board, DestinationsToMoves(PossibleDestinations, board));
-    }
-
-    /**
-     * If a pawn can move twice, check that its path is not obstructed, if so, don't allow it to move twice.
-     * Pawns can each only move twice on their first move.
-     *
-     * @param BoardArray           a 2-dimensional array of squares to represent the board
-     * @param PossibleDestinations a List of squares which the pawn can move to
-     * @return a List of square objects which the pawn can move to after checking whether it is eligible to move two spaces
-     */
-    private List<Square> CheckDoubleMoveCollision(Square[][] BoardArray, List<Square> PossibleDestinations) {
-        if ((getPieceCoordinate().getRank() == 2) || (getPieceCoordinate().getRank() == 7)) {
-            if (BoardArray[2][getPieceCoordinate().getFile() - 1].SquareOccupied()) {
-                if (!BoardArray[3][getPieceCoordinate().getFile() - 1].SquareOccupied()) {
-                    PossibleDestinations.remove(BoardArray[3][getPieceCoordinate().getFile() - 1]);
-                }
-            } else if (BoardArray[5][getPieceCoordinate().getFile() - 1].SquareOccupied()) {
-                if (!BoardArray[4][getPieceCoordinate().getFile() - 1].SquareOccupied()) {
-                    PossibleDestinations.remove(BoardArray[4][getPieceCoordinate().getFile() - 1]);
-                }
-            }
+        //En passant destination is empty but can be captured onto
+        if (board.getEnPassantPawn() != null && board.getEnPassantPawn().getColour() != colour) {
+            Square enPassantDestination = board.getEnPassantDestination();
+            long enPassantMask = Bitboards.SquareMask(Bitboards.SquareIndex(enPassantDestination.ReturnCoordinate()));
+            PossibleDestinations |= Bitboards.PAWN_ATTACKS[side][square] & enPassantMask;
         }
 
-        return PossibleDestinations;
+        return DestinationsToMoves(PossibleDestinations, board);
     }
 
     /**
-     * Takes the possible destinations a piece can move to and converts these to move objects
+     * Takes the possible destinations a pawn can move to and converts these to move objects
      *
-     * @param PossibleDestinations a List of squares which are available for the piece to move to
+     * @param PossibleDestinations a bitboard of the squares which are available for the pawn to move to
      * @param board                an instance of the board class to access the enPassant Pawn and boardArray
      * @return a List of valid moves
      */
-    private List<Move> DestinationsToMoves(final List<Square> PossibleDestinations, final Board board) {
+    @Override
+    protected List<Move> DestinationsToMoves(long PossibleDestinations, final Board board) {
         List<Move> Moves = new ArrayList<>();
         Square[][] BoardArray = board.getBoardArray();
+        Square Origin = BoardArray[PieceCoordinate.getRank() - 1][PieceCoordinate.getFile() - 1];
+
+        while (PossibleDestinations != 0) {
+            int destination = Long.numberOfTrailingZeros(PossibleDestinations);
+            PossibleDestinations &= PossibleDestinations - 1;
+            Square square = BoardArray[destination >>> 3][destination & 7];
 
-        for (Square square : PossibleDestinations) {
-            if ((board.getEnPassantPawn() != null) && (board.getEnPassantDestination().ReturnCoordinate().CompareCoordinates(square))
+            if ((board.getEnPassantPawn() != null) && (board.getEnPassantDestination() == square)
                     && (colour != board.getEnPassantPawn().colour)) {
                 //En Passant Move
-                Moves.add(new Move.EnPassantMove(PieceCoordinate.GetSquareAt(BoardArray), square, board.getEnPassantPawn(),
-                        board.getEnPassantPawn().PieceCoordinate.GetSquareAt(BoardArray)));
+                Coordinate capturedLocation = board.getEnPassantPawn().PieceCoordinate;
+                Moves.add(new Move.EnPassantMove(Origin, square, board.getEnPassantPawn(),
+                        BoardArray[capturedLocation.getRank() - 1][capturedLocation.getFile() - 1]));
 
             } else if (square.SquareOccupied()) {
                 if ((square.ReturnCoordinate().getRank() == 8 && colour == Colour.WHITE) || (square.ReturnCoordinate().getRank() == 1 && colour == Colour.BLACK)) {
                     //Pawn Promotion Capture
-                    Moves.add(new Move.PawnPromotionCapture(PieceCoordinate.GetSquareAt(BoardArray), square,
+                    Moves.add(new Move.PawnPromotionCapture(Origin, square,
                             new Queen(square.ReturnCoordinate(), colour, PieceType.QUEEN), square.ReturnPiece()));
-                    Moves.add(new Move.PawnPromotionCapture(PieceCoordinate.GetSquareAt(BoardArray), square,
+                    Moves.add(new Move.PawnPromotionCapture(Origin, square,
                             new Rook(square.ReturnCoordinate(), colour, PieceType.ROOK, CastlingAvailability.NEITHER), square.ReturnPiece()));
-                    Moves.add(new Move.PawnPromotionCapture(PieceCoordinate.GetSquareAt(BoardArray), square,
+                    Moves.add(new Move.PawnPromotionCapture(Origin, square,
                             new Knight(square.ReturnCoordinate(), colour, PieceType.KNIGHT), square.ReturnPiece()));
-                    Moves.add(new Move.PawnPromotionCapture(PieceCoordinate.GetSquareAt(BoardArray), square,
+                    Moves.add(new Move.PawnPromotionCapture(Origin, square,
                             new Bishop(square.ReturnCoordinate(), colour, PieceType.BISHOP), square.ReturnPiece()));
 
                 } else {
                     //Capturing move
-                    Moves.add(new Move.CapturingMove(PieceCoordinate.GetSquareAt(BoardArray), square, square.ReturnPiece()));
+                    Moves.add(new Move.CapturingMove(Origin, square, square.ReturnPiece()));
                 }
             } else {
                 if ((square.ReturnCoordinate().getRank() == 8 && colour == Colour.WHITE) || (square.ReturnCoordinate().getRank() == 1 && colour == Colour.BLACK)) {
                     //Pawn Promotion
-                    Moves.add(new Move.PawnPromotion(PieceCoordinate.GetSquareAt(BoardArray), square,
+                    Moves.add(new Move.PawnPromotion(Origin, square,
                             new Queen(square.ReturnCoordinate(), colour, PieceType.QUEEN)));
-                    Moves.add(new Move.PawnPromotion(PieceCoordinate.GetSquareAt(BoardArray), square,
+                    Moves.add(new Move.PawnPromotion(Origin, square,
                             new Rook(square.ReturnCoordinate(), colour, PieceType.ROOK, CastlingAvailability.NEITHER)));
-                    Moves.add(new Move.PawnPromotion(PieceCoordinate.GetSquareAt(BoardArray), square,
+                    Moves.add(new Move.PawnPromotion(Origin, square,
                             new Knight(square.ReturnCoordinate(), colour, PieceType.KNIGHT)));
-                    Moves.add(new Move.PawnPromotion(PieceCoordinate.GetSquareAt(BoardArray), square,
+                    Moves.add(new Move.PawnPromotion(Origin, square,
                             new Bishop(square.ReturnCoordinate(), colour, PieceType.BISHOP)));
 
                 } else {
                     //General move
-                    Moves.add(new Move.RegularMove(PieceCoordinate.GetSquareAt(BoardArray), square));
+                    Moves.add(new Move.RegularMove(Origin, square));
                 }
             }
         }
@@ -1,15 +1,14 @@
 package Game.Piece.Pieces;
 
+import Game.Board.Bitboards;
 import Game.Board.Board;
-import Game.Board.Square;
+import Game.Board.MagicBitboards;
 import Game.Colour;
 import Game.Coordinate;
 import Game.Move.Move;
 import Game.Piece.Piece;
 import Game.Piece.PieceType;
-import LibaryFunctions.Utility;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class Queen extends Piece {
@@ -25,85 +24,21 @@ public class Queen extends Piece {
     }
 
     /**
-     * Takes a board object and calculates the available queen moves so that
-     * illegal moves cannot be made
-     * Takes into account that check may be present on the board etc..
+     * Takes a board object and calculates the pseudo-legal queen moves. These follow the movement rules of the
+     * piece but may leave the king in check
      *
      * @param board An instance of the current board (which contains an array of squares)
-     * @return a list of all available/legal moves (where move is a move object)
+     * @return a list of all pseudo-legal moves (where move is a move object)
      */
     @Override
-    public List<Move> CalculateValidMoves(Board board) {
-        Square[][] BoardArray = board.getBoardArray();
-        List<Square> PossibleDestinations = CalculateDiagonals(BoardArray);
-        PossibleDestinations.addAll(CalculateStraights(BoardArray));
-        
-        /*Remove Square that moving piece is occupying and squares which
-        cannot be captured (because a piece of equal colour occupies it)*/
-        PossibleDestinations = RemoveRemainingInvalidDestinations(PossibleDestinations);
+    public List<Move> CalculatePseudoLegalMoves(Board board) {
+        int square = Bitboards.SquareIndex(getPieceCoordinate());
 
-        return removeIllegalMoves(board, DestinationsToMoves(PossibleDestinations, BoardArray));
-    }
-
-    /**
-     * Calculates the valid diagonal moves of the queen
-     *
-     * @param BoardArray a 2-Dimensional array of squares so that the diagonal line that the piece occupies can be found
-     *                   in the board array
-     * @return a list of possible destination squares
-     */
-    private List<Square> CalculateDiagonals(final Square[][] BoardArray) {
-        //Find Diagonal moves
-        List<Square> PositiveDiagonal = new ArrayList<>();
-        List<Square> NegativeDiagonal = new ArrayList<>();
-
-        for (Square[] Row : BoardArray) {
-            for (Square square : Row) {
-                Coordinate Destination = square.ReturnCoordinate();
-                int XDisplacement = getPieceCoordinate().getFile() - Destination.getFile();
-                int YDisplacement = getPieceCoordinate().getRank() - Destination.getRank();
-
-                if ((XDisplacement != 0) && Math.abs(XDisplacement) == Math.abs(YDisplacement)) {
-                    if (YDisplacement / XDisplacement == 1) {
-                        PositiveDiagonal.add(square);
-                    } else if (YDisplacement / XDisplacement == -1) {
-                        NegativeDiagonal.add(square);
-                    }
-                } else if ((XDisplacement == 0) && (YDisplacement == 0)) {
-                    PositiveDiagonal.add(square);
-                    NegativeDiagonal.add(square);
-                }
-            }
-        }
-
-        PositiveDiagonal = CheckCollisions(PositiveDiagonal);
-        NegativeDiagonal = CheckCollisions(NegativeDiagonal);
-
-        List<Square> PossibleDestinations = PositiveDiagonal;
-        PossibleDestinations.addAll(NegativeDiagonal);
-        return PossibleDestinations;
-    }
-
-    /**
-     * Calculates the valid horizontal and vertical (straight) line moves of the queen
-     *
-     * @param BoardArray a 2-Dimensional array of squares so that the straight line that the piece occupies can be found
-     *                   in the board array
-     * @return a list of possible destination squares
-     */
-    private List<Square> CalculateStraights(final Square[][] BoardArray) {
-        List<Square> PossibleDestinations = new ArrayList<>();
-
-        List<Square> Row = Utility.ArrayToRow(BoardArray, getPieceCoordinate().GetSquareAt(BoardArray));
-        List<Square> Column = Utility.ArrayToColumn(BoardArray, getPieceCoordinate().GetSquareAt(BoardArray));
-
-        //Check For any path obstructions regardless of piece colour
-        Column = CheckCollisions(Column);
-        Row = CheckCollisions(Row);
-        PossibleDestinations.addAll(Column);
-        PossibleDestinations.addAll(Row);
+        /*The queen moves along both the rook and bishop lines. Squares with a piece of the same colour
+        (or a king) cannot be moved to*/
+        long PossibleDestinations = MagicBitboards.getQueenAttacks(square, board.getOccupied()) & TargetSquares(board);
 
-        return PossibleDestinations;
+        return DestinationsToMoves(PossibleDestinations, board);
     }
 
     /**
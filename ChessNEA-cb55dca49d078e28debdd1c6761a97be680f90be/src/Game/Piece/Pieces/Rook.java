@@ -1,16 +1,15 @@
 package Game.Piece.Pieces;
 
+import Game.Board.Bitboards;
 import Game.Board.Board;
-import Game.Board.Square;
+import Game.Board.MagicBitboards;
 import Game.CastlingAvailability;
 import Game.Colour;
 import Game.Coordinate;
 import Game.Move.Move;
 import Game.Piece.Piece;
 import Game.Piece.PieceType;
-import LibaryFunctions.Utility;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class Rook extends Piece {
@@ -30,32 +29,21 @@ public class Rook extends Piece {
     }
 
     /**
-     * Takes a board object and calculates the available Rook moves so that
-     * illegal moves cannot be made
-     * Takes into account that check may be present on the board etc..
+     * Takes a board object and calculates the pseudo-legal Rook moves. These follow the movement rules of the
+     * piece but may leave the king in check
      *
      * @param board An instance of the current board (which contains an array of squares)
-     * @return a list of all available/legal moves (where move is a move object)
+     * @return a list of all pseudo-legal moves (where move is a move object)
      */
     @Override
-    public List<Move> CalculateValidMoves(Board board) {
-        Square[][] BoardArray = board.getBoardArray();
-        List<Square> PossibleDestinations = new ArrayList<>();
+    public List<Move> CalculatePseudoLegalMoves(Board board) {
+        int square = Bitboards.SquareIndex(getPieceCoordinate());
 
-        List<Square> Row = Utility.ArrayToRow(BoardArray, getPieceCoordinate().GetSquareAt(BoardArray));
-        List<Square> Column = Utility.ArrayToColumn(BoardArray, getPieceCoordinate().GetSquareAt(BoardArray));
+        /*Rook lines come from the magic bitboard tables. Squares with a piece of the same colour
+        (or a king) cannot be moved to*/
+        long PossibleDestinations = MagicBitboards.getRookAttacks(square, board.getOccupied()) & TargetSquares(board);
 
-        //Check For any path obstructions regardless of piece colour
-        Column = CheckCollisions(Column);
-        Row = CheckCollisions(Row);
-        PossibleDestinations.addAll(Column);
-        PossibleDestinations.addAll(Row);
-
-        /*Remove Square that moving piece is occupying and squares which
-        cannot be captured (because a piece of equal colour occupies it)*/
-        PossibleDestinations = RemoveRemainingInvalidDestinations(PossibleDestinations);
-
-        return removeIllegalMoves(board, DestinationsToMoves(PossibleDestinations, BoardArray));
+        return DestinationsToMoves(PossibleDestinations, board);
     }
 
     /**
@@ -0,0 +1,127 @@
+package Game;
+
+import Game.Move.MoveEncoding;
+
+/**
+ * A report of one completed iteration of an iterative deepening search. The score and principal variation are from
+ * that iteration, and the node and table counts are totals since the search started.
+ */
+public final class SearchInfo {
+
+    private final int depth;
+    private final int selectiveDepth;
+    private final double score;
+    private final int[] principalVariation;
+    private final long nodes;
+    private final long timeMillis;
+    private final long hashProbes;
+    private final long hashHits;
+    private final long expandedNodes;
+    private final long betaCutoffs;
+    private final long firstMoveCutoffs;
+
+    /**
+     * @param depth              The depth of the iteration
+     * @param selectiveDepth     The deepest ply reached, including the quiescence search
+     * @param score              The score in centipawns from the searching colours point of view,
+     *                           or Minimax.MATE less the plies to the mate for a forced mate
+     * @param principalVariation The encoded moves the search expects to be played, starting with the best move
+     * @param nodes              The number of nodes searched
+     * @param timeMillis         The time searched in milliseconds
+     * @param hashProbes         The number of transposition table probes
+     * @param hashHits           The number of probes which found the position
+     * @param expandedNodes      The number of nodes whose moves were searched (not counting the quiescence search)
+     * @param betaCutoffs        The number of those nodes which were cut off
+     * @param firstMoveCutoffs   The number of cutoffs made by the first move searched
+     */
+    SearchInfo(int depth, int selectiveDepth, double score, int[] principalVariation, long nodes, long timeMillis,
+               long hashProbes, long hashHits, long expandedNodes, long betaCutoffs, long firstMoveCutoffs) {
+        this.depth = depth;
+        this.selectiveDepth = selectiveDepth;
+        this.score = score;
+        this.principalVariation = principalVariation;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+        this.hashProbes = hashProbes;
+        this.hashHits = hashHits;
+        this.expandedNodes = expandedNodes;
+        this.betaCutoffs = betaCutoffs;
+        this.firstMoveCutoffs = firstMoveCutoffs;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getSelectiveDepth() {
+        return selectiveDepth;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * @return a copy of the encoded moves of the principal variation, starting with the best move
+     */
+    public int[] getPrincipalVariation() {
+        return principalVariation.clone();
+    }
+
+    /**
+     * @return the principal variation in long algebraic notation, eg - e2e4 e7e5 g1f3
+     */
+    public String getPrincipalVariationNotation() {
+        StringBuilder line = new StringBuilder();
+        for (int move : principalVariation) {
+            if (line.length() > 0) {
+                line.append(' ');
+            }
+            line.append(MoveEncoding.ToNotation(move));
+        }
+        return line.toString();
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * @return the nodes searched per second, or 0 if the iteration took less than a millisecond to measure it over
+     */
+    public long getNodesPerSecond() {
+        return timeMillis == 0 ? 0 : nodes * 1000 / timeMillis;
+    }
+
+    /**
+     * @return the fraction of transposition table probes which found the position
+     */
+    public double getHashHitRate() {
+        return hashProbes == 0 ? 0 : (double) hashHits / hashProbes;
+    }
+
+    /**
+     * @return the fraction of searched nodes which were cut off by a move
+     */
+    public double getBetaCutoffRate() {
+        return expandedNodes == 0 ? 0 : (double) betaCutoffs / expandedNodes;
+    }
+
+    /**
+     * @return the fraction of cutoffs made by the first move searched, which is high when moves are well ordered
+     */
+    public double getFirstMoveCutoffRate() {
+        return betaCutoffs == 0 ? 0 : (double) firstMoveCutoffs / betaCutoffs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("depth %d seldepth %d score %.0f nodes %d nps %d time %d hashhit %.3f cutoff %.3f firstcutoff %.3f pv %s",
+                depth, selectiveDepth, score, nodes, getNodesPerSecond(), timeMillis, getHashHitRate(),
+                getBetaCutoffRate(), getFirstMoveCutoffRate(), getPrincipalVariationNotation());
+    }
+}
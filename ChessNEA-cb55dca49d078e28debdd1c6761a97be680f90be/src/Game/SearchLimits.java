@@ -0,0 +1,62 @@
+package Game;
+
+/**
+ * The limits for an iterative deepening search. A search stops at whichever limit is reached first,
+ * and a limit of 0 means there is no limit of that kind.
+ */
+public final class SearchLimits {
+
+    private final int maxDepth;
+    private final long timeMillis;
+    private final long maxNodes;
+
+    /**
+     * @param maxDepth   The deepest iteration to search, or 0 for no depth limit
+     * @param timeMillis The time budget in milliseconds, or 0 for no time limit
+     * @param maxNodes   The number of nodes which can be searched, or 0 for no node limit
+     */
+    public SearchLimits(int maxDepth, long timeMillis, long maxNodes) {
+        if (maxDepth < 0 || timeMillis < 0 || maxNodes < 0) {
+            throw new IllegalArgumentException("Search limits cannot be negative");
+        }
+        this.maxDepth = maxDepth;
+        this.timeMillis = timeMillis;
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * @param maxDepth The depth to search to
+     * @return limits which search to a fixed depth
+     */
+    public static SearchLimits Depth(int maxDepth) {
+        return new SearchLimits(maxDepth, 0, 0);
+    }
+
+    /**
+     * @param timeMillis The time budget in milliseconds
+     * @return limits which search until the time runs out
+     */
+    public static SearchLimits Time(long timeMillis) {
+        return new SearchLimits(0, timeMillis, 0);
+    }
+
+    /**
+     * @param maxNodes The number of nodes which can be searched
+     * @return limits which search until the number of nodes is reached
+     */
+    public static SearchLimits Nodes(long maxNodes) {
+        return new SearchLimits(0, 0, maxNodes);
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+}
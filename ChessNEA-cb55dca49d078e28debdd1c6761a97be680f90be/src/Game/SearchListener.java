@@ -0,0 +1,14 @@
+package Game;
+
+/**
+ * Receives a report after each completed iteration of a search. It is called on the searching thread,
+ * so it should return quickly.
+ */
+@FunctionalInterface
+public interface SearchListener {
+
+    /**
+     * @param info The report of the iteration which has just completed
+     */
+    void IterationComplete(SearchInfo info);
+}
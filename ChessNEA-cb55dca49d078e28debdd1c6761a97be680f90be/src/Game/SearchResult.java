@@ -0,0 +1,29 @@
+package Game;
+
+import Game.Move.Move;
+
+/**
+ * The result of an iterative deepening search: the move to play and the report of the last completed iteration.
+ */
+public final class SearchResult {
+
+    private final Move bestMove;
+    private final SearchInfo info;
+
+    /**
+     * @param bestMove The best move found, or null if there are no legal moves
+     * @param info     The report of the last completed iteration, or null if none was completed
+     */
+    SearchResult(Move bestMove, SearchInfo info) {
+        this.bestMove = bestMove;
+        this.info = info;
+    }
+
+    public Move getBestMove() {
+        return bestMove;
+    }
+
+    public SearchInfo getInfo() {
+        return info;
+    }
+}
@@ -0,0 +1,148 @@
+package Game;
+
+import java.util.Arrays;
+
+/**
+ * A fixed size hash table of previously searched positions, indexed by Zobrist key.
+ * Each entry is two longs, the full key and a packed data word holding the best move, score, depth and bound type,
+ * so the table is held in two primitive arrays and storing or probing never creates objects.
+ * Entries are grouped in buckets of two: the first entry is only replaced by a search of at least the same depth
+ * (depth-preferred) and the second is replaced every time (always-replace).
+ * <p>
+ * The table can be shared by several search threads without locking. The key is stored XORed with the data word,
+ * so if two threads write the same entry at once and the key and data of different writes are mixed,
+ * the entry no longer matches any key and is treated as empty instead of giving a wrong result.
+ */
+public final class TranspositionTable {
+
+    /*
+    Bound types. The stored score is exact, a lower bound (the search failed high) or an upper bound (it failed low).
+    NONE is only found in empty entries
+     */
+    public static final int NONE = 0;
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+
+    private static final int BYTES_PER_ENTRY = 16;
+
+    private final long[] Keys;  //Each key is stored XOR its data word
+    private final long[] Data;
+    private final int BucketMask;
+
+    /**
+     * Creates a table using at most the given amount of memory. The number of entries is rounded down to a power of two
+     *
+     * @param sizeInMB The size of the table in megabytes
+     */
+    public TranspositionTable(int sizeInMB) {
+        if (sizeInMB < 1) {
+            throw new IllegalArgumentException("Transposition table size must be at least 1 MB");
+        }
+        long entries = Long.highestOneBit(sizeInMB * 1024L * 1024L / BYTES_PER_ENTRY);
+        entries = Math.min(entries, 1L << 30);
+        Keys = new long[(int) entries];
+        Data = new long[(int) entries];
+        BucketMask = (int) (entries / 2) - 1;
+    }
+
+    /**
+     * Finds the entry for a position
+     *
+     * @param key The Zobrist key of the position
+     * @return the packed data of the entry, or 0 if the position is not in the table
+     */
+    public long Probe(long key) {
+        int index = ((int) key & BucketMask) << 1;
+        //Each data word is read once, since another thread could change it between reads
+        long data = Data[index];
+        if (data != 0 && (Keys[index] ^ data) == key) {
+            return data;
+        }
+        data = Data[index + 1];
+        if (data != 0 && (Keys[index + 1] ^ data) == key) {
+            return data;
+        }
+        return 0;
+    }
+
+    /**
+     * Stores the result of searching a position
+     *
+     * @param key   The Zobrist key of the position
+     * @param move  The best encoded move found, or MoveEncoding.NONE
+     * @param score The score from the point of view of the side to move
+     * @param depth The depth the position was searched to
+     * @param bound EXACT, LOWER_BOUND or UPPER_BOUND
+     */
+    public void Store(long key, int move, double score, int depth, int bound) {
+        int index = ((int) key & BucketMask) << 1;
+        long data = Pack(move, score, depth, bound);
+
+        long stored = Data[index];
+        if (stored == 0 || (Keys[index] ^ stored) == key || depth >= getDepth(stored)) {
+            Keys[index] = key ^ data;
+            Data[index] = data;
+        } else {
+            Keys[index + 1] = key ^ data;
+            Data[index + 1] = data;
+        }
+    }
+
+    /**
+     * Empties the table
+     */
+    public void Clear() {
+        Arrays.fill(Keys, 0L);
+        Arrays.fill(Data, 0L);
+    }
+
+    /**
+     * @return the number of entries the table can hold
+     */
+    public int getCapacity() {
+        return Keys.length;
+    }
+
+    /*
+    Data word layout: bits 0-15 move, 16-23 depth, 24-25 bound, 32-63 the score as float bits
+     */
+    private static long Pack(int move, double score, int depth, int bound) {
+        return (move & 0xFFFFL)
+                | ((long) (depth & 0xFF) << 16)
+                | ((long) bound << 24)
+                | ((long) Float.floatToRawIntBits((float) score) << 32);
+    }
+
+    /**
+     * @param data The packed data of an entry
+     * @return the best encoded move stored
+     */
+    public static int getMove(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    /**
+     * @param data The packed data of an entry
+     * @return the depth the position was searched to
+     */
+    public static int getDepth(long data) {
+        return (int) ((data >>> 16) & 0xFF);
+    }
+
+    /**
+     * @param data The packed data of an entry
+     * @return the bound type of the score
+     */
+    public static int getBound(long data) {
+        return (int) ((data >>> 24) & 3);
+    }
+
+    /**
+     * @param data The packed data of an entry
+     * @return the score from the point of view of the side to move
+     */
+    public static double getScore(long data) {
+        return Float.intBitsToFloat((int) (data >>> 32));
+    }
+}
@@ -3,12 +3,16 @@ import Game.Colour;
 import Game.Coordinate;
 import Game.Game;
 import Game.Minimax;
+import Game.SearchLimits;
+import Game.TranspositionTable;
 import Game.Move.Move;
 
 import java.util.List;
 
 public class Main {
 
+    private static final TranspositionTable transpositionTable = new TranspositionTable(Minimax.DEFAULT_TABLE_SIZE_MB);
+
     public static void main(String[] args) {
 
 //        UserStats userStatsTest = new UserStats("pro", 1000, 10, 5, 5, 0, new java.sql.Date(Calendar.getInstance().getTime().getTime()),
@@ -33,9 +37,8 @@ public class Main {
 
 
     public static void MinimaxMove(Game g, Colour colour) {
-        Minimax x = new Minimax(g);
-        x.minimaxTraversal(g.getBoard(), 3, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, true, colour);
-        Move m = x.getCurrentBestMove();
+        Minimax x = new Minimax(g, transpositionTable);
+        Move m = x.IterativeDeepening(colour, SearchLimits.Time(1000));
         if (m == null) {
             System.out.println("No moves, Checkmate. Or wrong players turn");
         } else {
@@ -0,0 +1,156 @@
+package Tests;
+
+import Game.Board.Board;
+import Game.Colour;
+import Game.Game;
+import Game.Minimax;
+import Game.Move.MoveEncoding;
+import Game.Move.MoveGenerator;
+import Game.Piece.Piece;
+import Game.Piece.PieceType;
+import Game.TranspositionTable;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Benchmarks the engine's hot paths from a set of standard positions. Each benchmark is warmed up so the JIT has
+ * compiled it, then run for a fixed time, and the operations per second and bytes allocated per operation are printed.
+ * Run with the same JVM and arguments between builds to compare them.
+ */
+public class EngineBenchmark {
+
+    private static final long WARMUP_MILLIS = 1000;
+    private static final long MEASURE_MILLIS = 2000;
+    private static final int SEARCH_DEPTH = 3;
+
+    private static final String[] POSITIONS = {
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+    };
+
+    //Results are added here so the JIT cannot remove the work being measured
+    private static long sink;
+
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        Game[] games = new Game[POSITIONS.length];
+        for (int i = 0; i < POSITIONS.length; i++) {
+            games[i] = new Game(new Board(POSITIONS[i]));
+        }
+
+        for (PieceType type : PieceType.values()) {
+            benchmark("CalculateValidMoves " + type, () -> {
+                for (Game game : games) {
+                    for (Piece piece : game.getBoard().getWhitePieces()) {
+                        if (piece.getType() == type) {
+                            sink += piece.CalculateValidMoves(game.getBoard()).size();
+                        }
+                    }
+                }
+            });
+        }
+
+        benchmark("isThreatenedSquare (all squares)", () -> {
+            for (Game game : games) {
+                for (int square = 0; square < 64; square++) {
+                    if (Game.isThreatenedSquare(Colour.WHITE, square, game.getBoard())) {
+                        sink++;
+                    }
+                }
+            }
+        });
+
+        int[][] moves = new int[games.length][MoveGenerator.MAX_MOVES];
+        int[] moveCounts = new int[games.length];
+        for (int i = 0; i < games.length; i++) {
+            moveCounts[i] = MoveGenerator.GeneratePseudoLegalMoves(games[i].getBoard(), Colour.WHITE, moves[i]);
+        }
+        benchmark("MakeMove/reverseMove (all root moves)", () -> {
+            for (int i = 0; i < games.length; i++) {
+                Board board = games[i].getBoard();
+                for (int j = 0; j < moveCounts[i]; j++) {
+                    if (Game.isLegalMove(moves[i][j], board)) {
+                        Game.MakeMove(moves[i][j], board);
+                        sink += board.getZobristKey();
+                        Game.reverseMove(moves[i][j], board);
+                    }
+                }
+            }
+        });
+
+        //The buffer is made once, as a search does, so this should allocate nothing
+        int[] exchangeGains = new int[Game.EXCHANGE_BUFFER_SIZE];
+        benchmark("StaticExchangeEvaluation (all root captures)", () -> {
+            for (int i = 0; i < games.length; i++) {
+                Board board = games[i].getBoard();
+                for (int j = 0; j < moveCounts[i]; j++) {
+                    if (MoveEncoding.isCapture(moves[i][j])) {
+                        sink += Game.StaticExchangeEvaluation(moves[i][j], board, exchangeGains);
+                    }
+                }
+            }
+        });
+
+        TranspositionTable transpositionTable = new TranspositionTable(1);
+        Minimax[] searches = new Minimax[games.length];
+        for (int i = 0; i < games.length; i++) {
+            searches[i] = new Minimax(games[i], transpositionTable);
+        }
+        benchmark("evaluateBranch", () -> {
+            for (int i = 0; i < games.length; i++) {
+                sink += (long) searches[i].evaluateBranch(games[i].getBoard(), Colour.WHITE);
+            }
+        });
+
+        //The table is cleared each time so every search does the same work
+        benchmark("minimaxTraversal depth " + SEARCH_DEPTH, () -> {
+            for (int i = 0; i < games.length; i++) {
+                transpositionTable.Clear();
+                sink += (long) searches[i].minimaxTraversal(games[i].getBoard(), SEARCH_DEPTH,
+                        Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, true, Colour.WHITE);
+            }
+        });
+
+        benchmark("principalVariationSearch depth " + SEARCH_DEPTH, () -> {
+            for (int i = 0; i < games.length; i++) {
+                transpositionTable.Clear();
+                sink += (long) searches[i].principalVariationSearch(games[i].getBoard(), SEARCH_DEPTH,
+                        Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+            }
+        });
+
+        System.out.println("(" + sink + ")");
+    }
+
+    /**
+     * Runs one benchmark and prints its results. One operation is one call of the benchmark,
+     * which covers every position
+     *
+     * @param name      The name printed with the results
+     * @param operation The work being measured
+     */
+    private static void benchmark(String name, Runnable operation) {
+        long end = System.nanoTime() + WARMUP_MILLIS * 1000000L;
+        while (System.nanoTime() < end) {
+            operation.run();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        end = start + MEASURE_MILLIS * 1000000L;
+        long operations = 0;
+        long now;
+        do {
+            operation.run();
+            operations++;
+            now = System.nanoTime();
+        } while (now < end);
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("%-40s %14.1f ops/s %14d bytes/op%n", name, operations / ((now - start) / 1e9), allocated / operations);
+    }
+}
@@ -0,0 +1,59 @@
+package Tests;
+
+import Game.Board.Board;
+import Game.Perft;
+
+public class PerftTest {
+
+    /*
+    Standard perft positions with their known node counts: the starting position, Kiwipete (castling, pins and
+    enPassant in the middlegame), an endgame with enPassant discovered checks, a position full of promotions,
+    and two middlegame positions. Each row is the FEN, the depth and the expected count
+     */
+    private static final String[][] POSITIONS = {
+            {"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", "5", "4865609"},
+            {"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", "4", "4085603"},
+            {"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", "5", "674624"},
+            {"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", "4", "422333"},
+            {"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", "4", "2103487"},
+            {"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", "4", "3894594"},
+    };
+
+    /**
+     * With no arguments every standard position is counted and checked. With a FEN and a depth as arguments
+     * the count below each move of that position is printed (divide)
+     */
+    public static void main(String[] args) {
+        if (args.length == 2) {
+            Perft perft = new Perft(new Board(args[0]));
+            long start = System.nanoTime();
+            long nodes = perft.Divide(Integer.parseInt(args[1]));
+            printSpeed(nodes, System.nanoTime() - start);
+            return;
+        }
+
+        int failures = 0;
+        long totalNodes = 0, totalTime = 0;
+        for (String[] position : POSITIONS) {
+            Perft perft = new Perft(new Board(position[0]));
+            long start = System.nanoTime();
+            long nodes = perft.Count(Integer.parseInt(position[1]));
+            long time = System.nanoTime() - start;
+            long expected = Long.parseLong(position[2]);
+
+            System.out.println((nodes == expected ? "PASS " : "FAIL ") + position[0] + " depth " + position[1]
+                    + ": " + nodes + (nodes == expected ? "" : " expected " + expected));
+            if (nodes != expected) {
+                failures++;
+            }
+            totalNodes += nodes;
+            totalTime += time;
+        }
+        printSpeed(totalNodes, totalTime);
+        System.out.println(failures == 0 ? "All positions passed" : failures + " positions failed");
+    }
+
+    private static void printSpeed(long nodes, long nanoseconds) {
+        System.out.println(nodes + " nodes in " + nanoseconds / 1000000 + " ms, " + (long) (nodes / (nanoseconds / 1e9)) + " nodes per second");
+    }
+}
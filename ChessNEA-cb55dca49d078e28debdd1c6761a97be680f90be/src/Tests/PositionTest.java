@@ -0,0 +1,118 @@
+package Tests;
+
+import Game.Board.Board;
+import Game.Board.Position;
+import Game.Colour;
+import Game.Game;
+import Game.Move.MoveEncoding;
+import Game.Move.MoveGenerator;
+import Game.Piece.PieceType;
+
+public class PositionTest {
+
+    private static final int MAX_DEPTH = 8;
+
+    /*
+    The perft positions, walked to a shallower depth. At every node each legal move is made both with copy-make
+    (Position.MakeMove) and with make/unmake on the board, and the two positions must match: the bitboards, the
+    Zobrist key, the side to move, castling, enPassant and the move counters. A board built from the copy-made
+    position must have the same key, and reversing the move must give back the position before it
+     */
+    private static final String[][] POSITIONS = {
+            {"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", "4"},
+            {"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", "3"},
+            {"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", "4"},
+            {"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", "3"},
+            {"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", "3"},
+            {"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", "3"},
+    };
+
+    private static final int[][] MoveBuffers = new int[MAX_DEPTH][MoveGenerator.MAX_MOVES];
+    private static long checkedMoves;
+
+    public static void main(String[] args) {
+        int failures = 0;
+        for (String[] position : POSITIONS) {
+            Board board = new Board(position[0]);
+            checkedMoves = 0;
+            String difference = Walk(board, Position.Of(board), Integer.parseInt(position[1]), 0);
+
+            System.out.println((difference == null ? "PASS " : "FAIL ") + position[0] + " depth " + position[1]
+                    + ": " + (difference == null ? checkedMoves + " moves" : difference));
+            if (difference != null) {
+                failures++;
+            }
+        }
+        System.out.println(failures == 0 ? "All positions passed" : failures + " positions failed");
+    }
+
+    /**
+     * Makes every legal move both ways and compares the results, down to a depth
+     *
+     * @param board    The board, which matches position and is left unchanged
+     * @param position The position on the board
+     * @return a description of the first difference found, or null if there were none
+     */
+    private static String Walk(Board board, Position position, int depth, int ply) {
+        if (depth == 0) {
+            return null;
+        }
+        int[] moves = MoveBuffers[ply];
+        int moveCount = MoveGenerator.GenerateLegalMoves(board, board.getSideToMove(), moves);
+        for (int i = 0; i < moveCount; i++) {
+            int move = moves[i];
+            Position child = position.MakeMove(move);
+            Game.MakeMove(move, board);
+            checkedMoves++;
+
+            String difference = Compare(child, Position.Of(board));
+            if (difference == null && new Board(child).getZobristKey() != child.getZobristKey()) {
+                difference = "key of new Board(position)";
+            }
+            if (difference == null) {
+                difference = Walk(board, child, depth - 1, ply + 1);
+            }
+            Game.reverseMove(move, board);
+            if (difference == null) {
+                difference = Compare(position, Position.Of(board));
+                if (difference != null) {
+                    difference = "after reverseMove, " + difference;
+                }
+            }
+            if (difference != null) {
+                return MoveEncoding.ToNotation(move) + " " + difference;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param copyMade The position from Position.MakeMove
+     * @param made     A snapshot of the board the move was made on
+     * @return the name of the first field which differs, or null if they are the same position
+     */
+    private static String Compare(Position copyMade, Position made) {
+        for (Colour colour : Colour.values()) {
+            for (PieceType type : PieceType.values()) {
+                if (copyMade.getPieceBitboard(colour, type) != made.getPieceBitboard(colour, type)) {
+                    return colour + " " + type + " bitboard";
+                }
+            }
+            if (copyMade.getCastlingAvailability(colour) != made.getCastlingAvailability(colour)) {
+                return colour + " castling";
+            }
+        }
+        if (copyMade.getZobristKey() != made.getZobristKey()) {
+            return "Zobrist key";
+        } else if (copyMade.getSideToMove() != made.getSideToMove()) {
+            return "side to move";
+        } else if (copyMade.getEnPassantSquare() != made.getEnPassantSquare()) {
+            return "enPassant square";
+        } else if (copyMade.getHalfmoveClock() != made.getHalfmoveClock()) {
+            return "halfmove clock";
+        } else if (copyMade.getFullmoveNumber() != made.getFullmoveNumber()) {
+            return "fullmove number";
+        }
+        return null;
+    }
+}
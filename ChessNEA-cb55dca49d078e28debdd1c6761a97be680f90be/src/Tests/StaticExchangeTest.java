@@ -0,0 +1,61 @@
+package Tests;
+
+import Game.Board.Board;
+import Game.Game;
+import Game.Move.MoveEncoding;
+import Game.Move.MoveGenerator;
+
+public class StaticExchangeTest {
+
+    /*
+    Positions with the exchange value of one move in centipawns (pawn 100, knight 320, bishop 330, rook 500, queen 900).
+    Each row is the FEN, the move and the expected value. They cover an undefended capture, losing the capturing piece,
+    x-rays through rooks and queens on a file, the king only recapturing an undefended piece, a promotion and enPassant
+     */
+    private static final String[][] POSITIONS = {
+            {"1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1", "e1e5", "100"},
+            {"1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1", "d3e5", "-220"},
+            {"4k3/8/8/3p4/4P3/8/8/4K3 w - - 0 1", "e4d5", "100"},
+            {"4k3/8/2p5/3p4/4P3/8/8/4K3 w - - 0 1", "e4d5", "0"},
+            {"4k3/8/2p5/3p4/8/8/3Q4/4K3 w - - 0 1", "d2d5", "-800"},
+            {"3rk3/8/8/3p4/8/8/3R4/3RK3 w - - 0 1", "d2d5", "100"},
+            {"3rk3/3r4/8/3p4/8/8/3R4/3RK3 w - - 0 1", "d2d5", "-400"},
+            {"4k3/8/8/3q4/8/8/3Q4/3RK3 w - - 0 1", "d2d5", "900"},
+            {"4k3/8/8/3r4/4K3/8/8/8 w - - 0 1", "e4d5", "500"},
+            {"4k3/8/1n6/3r4/4K3/8/8/8 w - - 0 1", "e4d5", "-19500"},
+            {"4k3/8/8/8/8/8/1p6/B1N1K3 b - - 0 1", "b2c1q", "1120"},
+            {"4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1", "e5d6", "100"},
+    };
+
+    public static void main(String[] args) {
+        int[] gains = new int[Game.EXCHANGE_BUFFER_SIZE];
+        int failures = 0;
+        for (String[] position : POSITIONS) {
+            Board board = new Board(position[0]);
+            int move = FindMove(board, position[1]);
+            int expected = Integer.parseInt(position[2]);
+            int value = Game.StaticExchangeEvaluation(move, board, gains);
+
+            System.out.println((value == expected ? "PASS " : "FAIL ") + position[0] + " " + position[1]
+                    + ": " + value + (value == expected ? "" : " expected " + expected));
+            if (value != expected) {
+                failures++;
+            }
+        }
+        System.out.println(failures == 0 ? "All positions passed" : failures + " positions failed");
+    }
+
+    /**
+     * @return the encoded pseudo-legal move of the side to move with the given notation, eg - e2e4
+     */
+    private static int FindMove(Board board, String notation) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int moveCount = MoveGenerator.GeneratePseudoLegalMoves(board, board.getSideToMove(), moves);
+        for (int i = 0; i < moveCount; i++) {
+            if (MoveEncoding.ToNotation(moves[i]).equals(notation)) {
+                return moves[i];
+            }
+        }
+        throw new IllegalArgumentException("No move " + notation + " in " + board.ToFen());
+    }
+}